@@ -0,0 +1,143 @@
+package com.osc.oscms.materialservice.controller;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.storage.CachedFileResource;
+import com.osc.oscms.materialservice.storage.HotFileCache;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下载响应组装基准：响应头、Range 解析与内容写出
+ * 响应体写入丢弃输出流，只计字节数，不把内容缓存在内存中。
+ * range 为 none 时返回完整内容，其余为请求的 Range 头；hotCache 为 true 时资源来自热点文件缓存
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DownloadResponseBenchmark {
+
+    private static final String NO_RANGE = "none";
+
+    @Param({"1024", "1048576"})
+    int size;
+
+    @Param({NO_RANGE, "bytes=0-1023", "bytes=0-99,512-611"})
+    String range;
+
+    @Param({"false", "true"})
+    boolean hotCache;
+
+    private Path root;
+    private DownloadResponseWriter downloadResponseWriter;
+    private Resource resource;
+    private long lastModified;
+    private StorageIoExecutor storageIoExecutor;
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("download-bench-");
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setPath(root.toString());
+        properties.getHotCache().setEnabled(hotCache);
+
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        Path file = root.resolve("material.pdf");
+        Files.write(file, content);
+        lastModified = Files.getLastModifiedTime(file).toMillis();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        HotFileCache hotFileCache = new HotFileCache(properties, meterRegistry);
+        resource = hotFileCache.open("material.pdf", file);
+        storageIoExecutor = new StorageIoExecutor(properties, new MockEnvironment(), meterRegistry);
+        downloadResponseWriter = new DownloadResponseWriter(storageIoExecutor);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        storageIoExecutor.shutdown();
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/materials/10086/download");
+        if (!NO_RANGE.equals(range)) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        DiscardingResponse response = new DiscardingResponse();
+        // write 结束时释放一个引用，与服务端每次打开文件时增加的引用对应
+        if (resource instanceof CachedFileResource cached) {
+            cached.retain();
+        }
+        downloadResponseWriter.write(request, response, resource, "第三章 进程与线程.pdf", "application/pdf",
+                "\"10086-4\"", lastModified);
+        return response.out.written + response.getStatus();
+    }
+
+    /**
+     * 丢弃响应体的响应，响应头仍由 MockHttpServletResponse 记录
+     */
+    private static class DiscardingResponse extends MockHttpServletResponse {
+
+        private final DiscardingOutputStream out = new DiscardingOutputStream();
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+    }
+
+    private static class DiscardingOutputStream extends ServletOutputStream {
+
+        private long written;
+
+        @Override
+        public void write(int b) {
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            written += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}
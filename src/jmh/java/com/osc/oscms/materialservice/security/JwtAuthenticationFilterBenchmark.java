@@ -0,0 +1,95 @@
+package com.osc.oscms.materialservice.security;
+
+import com.osc.oscms.materialservice.config.JwtClaimsCacheProperties;
+import com.osc.oscms.materialservice.config.JwtProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 认证过滤器基准：从请求头取令牌、验证并建立认证信息
+ * 令牌以 HS256 签名，由 JwtClaimsParser 验签一次并读取用户ID、角色和过期时间。
+ * cacheEnabled 为 false 时每个请求都验签，为 true 时同一令牌只在首次验签
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"false", "true"})
+    boolean cacheEnabled;
+
+    private final String secret = "oscms-benchmark-secret-key-0123456789abcdef";
+    private final byte[] secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private String authorization;
+    private Authentication authenticated;
+
+    @Setup
+    public void setUp() throws Exception {
+        String header = base64Url("{\"alg\":\"HS256\",\"typ\":\"JWT\"}");
+        String payload = base64Url("{\"sub\":\"20230001\",\"roles\":[\"ROLE_STUDENT\"],\"iat\":"
+                + Instant.now().getEpochSecond() + ",\"exp\":" + Instant.now().plusSeconds(7200).getEpochSecond()
+                + "}");
+        String signingInput = header + "." + payload;
+        authorization = "Bearer " + signingInput + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(sign(signingInput));
+
+        JwtProperties jwtProperties = new JwtProperties();
+        jwtProperties.setSecret(secret);
+        JwtClaimsCacheProperties properties = new JwtClaimsCacheProperties();
+        properties.setEnabled(cacheEnabled);
+        JwtClaimsCache jwtClaimsCache = new JwtClaimsCache(new JwtClaimsParser(jwtProperties), properties,
+                new SimpleMeterRegistry());
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtClaimsCache);
+    }
+
+    @Benchmark
+    public Authentication filter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/materials/course/42");
+        request.addHeader(HttpHeaders.AUTHORIZATION, authorization);
+        try {
+            jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                    authenticated = SecurityContextHolder.getContext().getAuthentication());
+            return authenticated;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private byte[] sign(String signingInput) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secretBytes, "HmacSHA256"));
+        return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String base64Url(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
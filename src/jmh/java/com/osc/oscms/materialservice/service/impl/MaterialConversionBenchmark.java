@@ -0,0 +1,85 @@
+package com.osc.oscms.materialservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.materialservice.domain.Material;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 资料列表转换基准：实体转 DTO、可见班级 JSON 解析与往返
+ * classCount 为资料可见的班级数，0 表示对全部学生可见（visible_classes 为空）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MaterialConversionBenchmark {
+
+    @Param({"0", "5", "50"})
+    int classCount;
+
+    private MaterialDtoConverter materialDtoConverter;
+    private Material material;
+    private List<String> classIds;
+
+    @Setup
+    public void setUp() {
+        // 与应用中注入的 ObjectMapper 配置一致
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        materialDtoConverter = new MaterialDtoConverter(objectMapper);
+
+        classIds = LongStream.rangeClosed(1, classCount)
+                .mapToObj(id -> String.valueOf(202400 + id))
+                .toList();
+
+        material = new Material();
+        material.setId(10086L);
+        material.setCourseId(42L);
+        material.setChapterOrder(3);
+        material.setVisibleClasses(materialDtoConverter.classIdsToJson(classIds));
+        material.setLatestVersionId(20001L);
+        material.setLatestVersion(4);
+        material.setLatestFilename("第三章 进程与线程.pdf");
+        material.setLatestUrl("9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08");
+        material.setLatestFileSize(3_482_113L);
+        material.setLatestFileType("PDF");
+        material.setCreatedAt(LocalDateTime.of(2024, 9, 2, 8, 0));
+        material.setUpdatedAt(LocalDateTime.of(2024, 10, 15, 20, 30));
+    }
+
+    @Benchmark
+    public MaterialDto toDto() {
+        return materialDtoConverter.toDto(material);
+    }
+
+    @Benchmark
+    public List<String> jsonToClassIds() {
+        return materialDtoConverter.jsonToClassIds(material.getVisibleClasses());
+    }
+
+    /**
+     * 写入可见班级再读回，对应更新可见性后重新列出资料
+     */
+    @Benchmark
+    public List<String> visibilityRoundTrip() {
+        return materialDtoConverter.jsonToClassIds(materialDtoConverter.classIdsToJson(classIds));
+    }
+}
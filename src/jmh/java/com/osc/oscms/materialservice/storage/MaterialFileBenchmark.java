@@ -0,0 +1,117 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 存储文件读写基准：store（经写入类别排队，边写边计算摘要、识别类型）与经读取类别排队打开文件后读出全部内容，
+ * 与上传、下载资料时的存储调用方式一致。
+ * 热点文件缓存关闭，读取走文件系统（数据通常已在页缓存中）。
+ * 非内容寻址模式下 store 每次写入新文件，测量值包含随后删除该文件的开销；
+ * 内容寻址模式下除第一次外都命中已有文件，测量的是完整写入临时文件后去重的路径
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MaterialFileBenchmark {
+
+    /**
+     * 文件大小：1 KB / 1 MB / 50 MB
+     */
+    @Param({"1024", "1048576", "52428800"})
+    int size;
+
+    @Param({"false", "true"})
+    boolean contentAddressed;
+
+    private Path root;
+    private MaterialFileStorage materialFileStorage;
+    private HotFileCache hotFileCache;
+    private StorageIoExecutor storageIoExecutor;
+    private MockMultipartFile upload;
+    private String storedKey;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(64 * 1024);
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("material-bench-");
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setPath(root.toString());
+        properties.setContentAddressed(contentAddressed);
+        properties.getHotCache().setEnabled(false);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        hotFileCache = new HotFileCache(properties, meterRegistry);
+        materialFileStorage = new MaterialFileStorage(properties, hotFileCache);
+        storageIoExecutor = new StorageIoExecutor(properties, new StandardEnvironment(), meterRegistry);
+
+        // 随机内容接近已压缩的 PDF / 视频，文件头仍为 PDF 魔数
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        System.arraycopy("%PDF-1.7\n".getBytes(), 0, content, 0, Math.min(9, size));
+        upload = new MockMultipartFile("file", "第三章 进程与线程.pdf", "application/pdf", content);
+        storedKey = materialFileStorage.store(upload).key();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        storageIoExecutor.shutdown();
+        FileSystemUtils.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public StoredFile store() throws IOException {
+        StoredFile stored = storageIoExecutor.call(Lane.WRITE, () -> materialFileStorage.store(upload));
+        if (!contentAddressed) {
+            materialFileStorage.delete(stored.key());
+        }
+        return stored;
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        Resource resource = storageIoExecutor.call(Lane.READ,
+                () -> hotFileCache.open(storedKey, materialFileStorage.resolve(storedKey)));
+        long total = 0;
+        try (ReadableByteChannel channel = resource.readableChannel()) {
+            int read;
+            while ((read = channel.read(readBuffer)) >= 0) {
+                total += read;
+                readBuffer.clear();
+            }
+        } finally {
+            if (resource instanceof CachedFileResource cached) {
+                cached.release();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,132 @@
+package com.osc.oscms.materialservice.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 课程服务桩
+ * 在本地端口上实现 CourseServiceClient 调用的三个接口，所有课程和班级都存在、所有用户都有权限；
+ * 按配置的延迟响应，并按错误率返回 500
+ */
+@Slf4j
+public class CourseServiceStub {
+
+    private static final Pattern COURSE = Pattern.compile("^/courses/(\\d+)$");
+    private static final Pattern CLASS = Pattern.compile("^/classes/(\\d+)$");
+    private static final Pattern PERMISSION = Pattern.compile("^/courses/(\\d+)/users/[^/]+/permission$");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile double errorRate;
+
+    private CourseServiceStub(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * 在随机端口上启动
+     */
+    public static CourseServiceStub start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "course-service-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CourseServiceStub stub = new CourseServiceStub(server, executor);
+        server.createContext("/", stub::handle);
+        server.setExecutor(executor);
+        server.start();
+        return stub;
+    }
+
+    public void configure(LoadTestProperties.CourseService properties) {
+        this.latency = properties.getLatency();
+        this.errorRate = properties.getErrorRate();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            sleep(latency);
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failures.incrementAndGet();
+                respond(exchange, 500, "{\"code\":500,\"success\":false,\"message\":\"stub failure\",\"data\":null}");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            Matcher matcher;
+            if ((matcher = COURSE.matcher(path)).matches()) {
+                String id = matcher.group(1);
+                respond(exchange, 200, ok("{\"id\":" + id + ",\"name\":\"压测课程 " + id + "\"}"));
+            } else if ((matcher = CLASS.matcher(path)).matches()) {
+                String id = matcher.group(1);
+                respond(exchange, 200, ok("{\"id\":" + id + ",\"name\":\"压测班级 " + id + "\"}"));
+            } else if (PERMISSION.matcher(path).matches()) {
+                respond(exchange, 200, ok("true"));
+            } else {
+                respond(exchange, 404, "{\"code\":404,\"success\":false,\"message\":\"not found\",\"data\":null}");
+            }
+        }
+    }
+
+    private static String ok(String data) {
+        return "{\"code\":200,\"success\":true,\"message\":\"success\",\"data\":" + data + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        if (duration.isZero() || duration.isNegative()) {
+            return;
+        }
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
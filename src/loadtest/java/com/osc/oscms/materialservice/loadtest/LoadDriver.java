@@ -0,0 +1,207 @@
+package com.osc.oscms.materialservice.loadtest;
+
+import com.osc.oscms.materialservice.loadtest.LoadTestDataSeeder.Dataset;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 压测请求驱动
+ * 固定数量的线程各自循环发送请求（闭环模型），按权重随机选择接口，直到时长结束；
+ * 每个线程使用一个固定的用户令牌，令牌在线程间轮流复用
+ */
+@Slf4j
+public class LoadDriver {
+
+    /**
+     * 参与压测的不同用户数
+     */
+    private static final int USERS = 50;
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Endpoint {
+        LIST("GET /materials/course/{courseId}"),
+        DOWNLOAD("GET /materials/{materialId}/download"),
+        UPLOAD("POST /materials/upload");
+
+        private final String label;
+    }
+
+    private final URI baseUri;
+    private final LoadTestProperties properties;
+    private final Dataset dataset;
+    private final HttpClient httpClient;
+
+    /**
+     * 各课程列表最近一次返回的 ETag，用于条件请求
+     */
+    private final Map<Long, String> listingEtags = new ConcurrentHashMap<>();
+
+    public LoadDriver(URI baseUri, LoadTestProperties properties, Dataset dataset) {
+        this.baseUri = baseUri;
+        this.properties = properties;
+        this.dataset = dataset;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * 以配置的并发数发送请求，持续指定时长
+     */
+    public LoadReport run(Duration duration) throws InterruptedException {
+        int concurrency = properties.getConcurrency();
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "load-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<LoadReport>> results = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            int worker = i;
+            results.add(workers.submit(() -> work(worker, deadline)));
+        }
+
+        LoadReport report = null;
+        try {
+            List<LoadReport> reports = new ArrayList<>();
+            for (Future<LoadReport> result : results) {
+                reports.add(result.get());
+            }
+            report = new LoadReport(Duration.ofNanos(System.nanoTime() - start));
+            for (LoadReport workerReport : reports) {
+                report.merge(workerReport);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Load worker failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return report;
+    }
+
+    private LoadReport work(int worker, long deadline) throws InterruptedException {
+        LoadReport report = new LoadReport(Duration.ZERO);
+        String authorization = "Bearer " + LoadTestSecurityConfig.TOKEN_PREFIX + "teacher" + (worker % USERS);
+        byte[] uploadContent = newUploadContent();
+        int totalWeight = properties.getMix().getList() + properties.getMix().getDownload()
+                + properties.getMix().getUpload();
+
+        while (System.nanoTime() < deadline) {
+            Endpoint endpoint = pick(ThreadLocalRandom.current().nextInt(totalWeight));
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = switch (endpoint) {
+                    case LIST -> list(authorization);
+                    case DOWNLOAD -> download(authorization);
+                    case UPLOAD -> upload(authorization, uploadContent);
+                };
+            } catch (IOException e) {
+                log.debug("Request {} failed", endpoint, e);
+                status = -1;
+            }
+            report.record(endpoint, status, System.nanoTime() - start);
+        }
+        return report;
+    }
+
+    private Endpoint pick(int value) {
+        LoadTestProperties.Mix mix = properties.getMix();
+        if (value < mix.getList()) {
+            return Endpoint.LIST;
+        }
+        if (value < mix.getList() + mix.getDownload()) {
+            return Endpoint.DOWNLOAD;
+        }
+        return Endpoint.UPLOAD;
+    }
+
+    private int list(String authorization) throws IOException, InterruptedException {
+        long courseId = ThreadLocalRandom.current().nextLong(1, dataset.courses() + 1);
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve("/materials/course/" + courseId))
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .GET();
+        String etag = listingEtags.get(courseId);
+        if (etag != null && ThreadLocalRandom.current().nextInt(100) < properties.getRevalidatePercent()) {
+            request.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        HttpResponse<Void> response = httpClient.send(request.build(), BodyHandlers.discarding());
+        if (response.statusCode() == 200) {
+            response.headers().firstValue(HttpHeaders.ETAG).ifPresent(value -> listingEtags.put(courseId, value));
+        }
+        return response.statusCode();
+    }
+
+    private int download(String authorization) throws IOException, InterruptedException {
+        long materialId = ThreadLocalRandom.current().nextLong(1, dataset.materials() + 1);
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/materials/" + materialId + "/download"))
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .GET()
+                .build();
+        return httpClient.send(request, BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * 上传的内容每次都不同，避免内容寻址存储直接复用已有文件
+     */
+    private int upload(String authorization, byte[] content) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ByteBuffer.wrap(content, 16, 16).putLong(random.nextLong()).putLong(random.nextLong());
+        long courseId = random.nextLong(1, dataset.courses() + 1);
+
+        String boundary = UUID.randomUUID().toString();
+        String head = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"courseId\"\r\n\r\n" + courseId + "\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n";
+        String tail = "\r\n--" + boundary + "--\r\n";
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/materials/upload"))
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(HttpHeaders.CONTENT_TYPE, "multipart/form-data; boundary=" + boundary)
+                .POST(BodyPublishers.concat(
+                        BodyPublishers.ofByteArray(head.getBytes(StandardCharsets.UTF_8)),
+                        BodyPublishers.ofByteArray(content),
+                        BodyPublishers.ofByteArray(tail.getBytes(StandardCharsets.US_ASCII))))
+                .build();
+        return httpClient.send(request, BodyHandlers.discarding()).statusCode();
+    }
+
+    private byte[] newUploadContent() {
+        byte[] content = new byte[(int) Math.max(32, properties.getUploadSize().toBytes())];
+        ThreadLocalRandom.current().nextBytes(content);
+        byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, content, 0, header.length);
+        return content;
+    }
+}
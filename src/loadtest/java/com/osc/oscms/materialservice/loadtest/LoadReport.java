@@ -0,0 +1,107 @@
+package com.osc.oscms.materialservice.loadtest;
+
+import com.osc.oscms.materialservice.loadtest.LoadDriver.Endpoint;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 压测结果：按接口统计请求数、吞吐量与延迟分位数
+ * 2xx 与 304 计为成功，429（存储繁忙）单独统计，其余状态码和连接失败计为错误
+ */
+public class LoadReport {
+
+    private final Duration elapsed;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+
+    LoadReport(Duration elapsed) {
+        this.elapsed = elapsed;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+    }
+
+    /**
+     * 记录一次请求；status 为 -1 表示请求未得到响应
+     */
+    void record(Endpoint endpoint, int status, long latencyNanos) {
+        stats.get(endpoint).record(status, latencyNanos);
+    }
+
+    /**
+     * 合并各并发线程的记录
+     */
+    void merge(LoadReport other) {
+        other.stats.forEach((endpoint, value) -> stats.get(endpoint).merge(value));
+    }
+
+    public void print(PrintStream out) {
+        double seconds = elapsed.toNanos() / 1e9;
+        out.printf("%n压测结果（采集 %.1f 秒）%n", seconds);
+        out.printf("%-36s %10s %10s %10s %10s %10s %8s %8s %8s%n", "Endpoint", "Requests", "Req/s", "p50(ms)",
+                "p99(ms)", "max(ms)", "304", "429", "Errors");
+        EndpointStats total = new EndpointStats();
+        stats.forEach((endpoint, value) -> {
+            print(out, endpoint.getLabel(), value, seconds);
+            total.merge(value);
+        });
+        print(out, "TOTAL", total, seconds);
+    }
+
+    private static void print(PrintStream out, String label, EndpointStats stats, double seconds) {
+        long[] latencies = Arrays.copyOf(stats.latencies, stats.count);
+        Arrays.sort(latencies);
+        out.printf("%-36s %10d %10.1f %10.2f %10.2f %10.2f %8d %8d %8d%n", label, stats.count, stats.count / seconds,
+                millis(percentile(latencies, 0.50)), millis(percentile(latencies, 0.99)),
+                millis(percentile(latencies, 1.0)), stats.notModified, stats.rejected, stats.errors);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static class EndpointStats {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long notModified;
+        private long rejected;
+        private long errors;
+
+        void record(int status, long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (status == 304) {
+                notModified++;
+            } else if (status == 429) {
+                rejected++;
+            } else if (status < 200 || status >= 300) {
+                errors++;
+            }
+        }
+
+        void merge(EndpointStats other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, count + other.count);
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            notModified += other.notModified;
+            rejected += other.rejected;
+            errors += other.errors;
+        }
+    }
+}
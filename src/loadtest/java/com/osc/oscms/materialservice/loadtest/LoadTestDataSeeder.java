@@ -0,0 +1,107 @@
+package com.osc.oscms.materialservice.loadtest;
+
+import com.osc.oscms.materialservice.storage.MaterialFileStorage;
+import com.osc.oscms.materialservice.storage.StoredFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 压测数据准备
+ * 先写入少量不同内容的文件，再按 JDBC 批量插入资料和版本，各版本轮流引用这些文件；
+ * 课程ID为 1..courses，资料ID为 1..materials
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+@RequiredArgsConstructor
+public class LoadTestDataSeeder {
+
+    /**
+     * 每个章节的资料数
+     */
+    private static final int MATERIALS_PER_CHAPTER = 10;
+
+    private static final String INSERT_MATERIAL = "INSERT INTO osc_material (id, course_id, chapter_order, "
+            + "latest_version_id, latest_version, latest_filename, latest_url, latest_file_size, latest_file_type, "
+            + "next_version, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_VERSION = "INSERT INTO osc_material_version (id, material_id, version, "
+            + "filename, url, file_size, file_type, content_type, content_hash, description, uploaded_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MaterialFileStorage materialFileStorage;
+    private final LoadTestProperties properties;
+
+    /**
+     * 已准备的数据规模
+     */
+    public record Dataset(int courses, long materials) {
+    }
+
+    public Dataset seed() throws IOException {
+        long start = System.nanoTime();
+        List<StoredFile> files = writeFiles();
+
+        int versionsPerMaterial = properties.getVersionsPerMaterial();
+        LocalDateTime baseTime = LocalDateTime.now().minusDays(30);
+        long materialId = 0;
+        long versionId = 0;
+        for (long courseId = 1; courseId <= properties.getCourses(); courseId++) {
+            List<Object[]> materials = new ArrayList<>();
+            List<Object[]> versions = new ArrayList<>();
+            int chapterOrder = 0;
+            for (int i = 0; i < properties.getMaterialsPerCourse(); i++) {
+                materialId++;
+                chapterOrder = i / MATERIALS_PER_CHAPTER + 1;
+                String filename = "第" + chapterOrder + "章 资料" + materialId + ".pdf";
+                LocalDateTime createdAt = baseTime.plusMinutes(materialId);
+                StoredFile latest = null;
+                for (int version = 1; version <= versionsPerMaterial; version++) {
+                    versionId++;
+                    latest = files.get((int) (versionId % files.size()));
+                    versions.add(new Object[] { versionId, materialId, version, filename, latest.key(), latest.size(),
+                            "PDF", latest.contentType(), latest.sha256(), "压测数据", createdAt.plusHours(version) });
+                }
+                materials.add(new Object[] { materialId, courseId, chapterOrder, versionId, versionsPerMaterial,
+                        filename, latest.key(), latest.size(), "PDF", versionsPerMaterial + 1, createdAt,
+                        createdAt.plusHours(versionsPerMaterial) });
+            }
+            jdbcTemplate.batchUpdate(INSERT_MATERIAL, materials);
+            jdbcTemplate.batchUpdate(INSERT_VERSION, versions);
+            jdbcTemplate.update("INSERT INTO osc_course_chapter_counter (course_id, next_chapter_order) VALUES (?, ?)",
+                    courseId, chapterOrder + 1);
+        }
+        // 显式指定了主键，后续上传从已准备的ID之后分配
+        jdbcTemplate.execute("ALTER TABLE osc_material ALTER COLUMN id RESTART WITH " + (materialId + 1));
+        jdbcTemplate.execute("ALTER TABLE osc_material_version ALTER COLUMN id RESTART WITH " + (versionId + 1));
+
+        log.info("Seeded {} courses, {} materials and {} versions over {} files in {} ms", properties.getCourses(),
+                materialId, versionId, files.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Dataset(properties.getCourses(), materialId);
+    }
+
+    private List<StoredFile> writeFiles() throws IOException {
+        Random random = new Random(42);
+        byte[] content = new byte[(int) properties.getFileSize().toBytes()];
+        byte[] header = "%PDF-1.7\n".getBytes(StandardCharsets.US_ASCII);
+        List<StoredFile> files = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, properties.getDistinctFiles()); i++) {
+            random.nextBytes(content);
+            System.arraycopy(header, 0, content, 0, Math.min(header.length, content.length));
+            files.add(materialFileStorage.store(new ByteArrayInputStream(content), "seed-" + i + ".pdf"));
+        }
+        return files;
+    }
+}
@@ -0,0 +1,56 @@
+package com.osc.oscms.materialservice.loadtest;
+
+import com.osc.oscms.materialservice.MaterialServiceApplication;
+import com.osc.oscms.materialservice.loadtest.LoadTestDataSeeder.Dataset;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 端到端压测入口
+ * 启动课程服务桩，以 loadtest profile 启动资料服务（H2 内存数据库、临时存储目录），
+ * 准备数据后按配置的并发发送混合请求，预热结束后采集并输出各接口的吞吐量与延迟。
+ * 命令行参数按 Spring Boot 参数处理，如 --loadtest.concurrency=500 --spring.threads.virtual.enabled=true
+ */
+@Slf4j
+public class LoadTestHarness {
+
+    public static void main(String[] args) throws Exception {
+        CourseServiceStub courseService = CourseServiceStub.start();
+        Path storage = Files.createTempDirectory("oscms-loadtest-");
+        String[] applicationArgs = Arrays.copyOf(args, args.length + 2);
+        applicationArgs[args.length] = "--loadtest.course-service-port=" + courseService.getPort();
+        applicationArgs[args.length + 1] = "--file.storage.path=" + storage;
+
+        SpringApplication application = new SpringApplication(MaterialServiceApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        try (ConfigurableApplicationContext context = application.run(applicationArgs)) {
+            LoadTestProperties properties = context.getBean(LoadTestProperties.class);
+            courseService.configure(properties.getCourseService());
+            Dataset dataset = context.getBean(LoadTestDataSeeder.class).seed();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadDriver driver = new LoadDriver(URI.create("http://localhost:" + port), properties, dataset);
+
+            log.info("Warming up for {} with {} concurrent requests", properties.getWarmup(),
+                    properties.getConcurrency());
+            driver.run(properties.getWarmup());
+            log.info("Measuring for {}", properties.getDuration());
+            LoadReport report = driver.run(properties.getDuration());
+
+            report.print(System.out);
+            System.out.printf("课程服务桩：%d 次请求，%d 次返回错误%n", courseService.getRequests(),
+                    courseService.getFailures());
+        } finally {
+            courseService.stop();
+            FileSystemUtils.deleteRecursively(storage);
+        }
+    }
+}
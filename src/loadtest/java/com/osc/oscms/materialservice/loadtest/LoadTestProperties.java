@@ -0,0 +1,117 @@
+package com.osc.oscms.materialservice.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 压测参数
+ */
+@Data
+@Component
+@Profile("loadtest")
+@ConfigurationProperties(prefix = "loadtest")
+public class LoadTestProperties {
+
+    /**
+     * 并发请求数
+     */
+    private int concurrency = 200;
+
+    /**
+     * 预热时长，期间的请求不计入结果
+     */
+    private Duration warmup = Duration.ofSeconds(30);
+
+    /**
+     * 采集时长
+     */
+    private Duration duration = Duration.ofMinutes(2);
+
+    /**
+     * 课程数
+     */
+    private int courses = 20;
+
+    /**
+     * 每门课程的资料数
+     */
+    private int materialsPerCourse = 500;
+
+    /**
+     * 每份资料的版本数
+     */
+    private int versionsPerMaterial = 3;
+
+    /**
+     * 准备数据时写入的不同文件个数，各版本轮流引用
+     */
+    private int distinctFiles = 50;
+
+    /**
+     * 准备数据时写入的文件大小
+     */
+    private DataSize fileSize = DataSize.ofKilobytes(256);
+
+    /**
+     * 上传请求的文件大小
+     */
+    private DataSize uploadSize = DataSize.ofKilobytes(256);
+
+    /**
+     * 请求比例
+     */
+    private Mix mix = new Mix();
+
+    /**
+     * 列表请求中带 If-None-Match 的比例（0-100）
+     */
+    private int revalidatePercent = 50;
+
+    /**
+     * 课程服务桩配置
+     */
+    private CourseService courseService = new CourseService();
+
+    /**
+     * 课程服务桩的端口，由 LoadTestHarness 设置
+     */
+    private int courseServicePort;
+
+    @Data
+    public static class Mix {
+
+        /**
+         * 课程资料列表 GET /materials/course/{courseId}
+         */
+        private int list = 70;
+
+        /**
+         * 资料下载 GET /materials/{materialId}/download
+         */
+        private int download = 25;
+
+        /**
+         * 资料上传 POST /materials/upload
+         */
+        private int upload = 5;
+    }
+
+    @Data
+    public static class CourseService {
+
+        /**
+         * 每个请求的响应延迟
+         */
+        private Duration latency = Duration.ofMillis(20);
+
+        /**
+         * 返回 500 的比例（0-1）
+         */
+        private double errorRate = 0.0;
+    }
+}
@@ -0,0 +1,38 @@
+package com.osc.oscms.materialservice.loadtest;
+
+import com.osc.oscms.materialservice.security.JwtClaimsParser;
+import com.osc.oscms.materialservice.security.JwtClaimsParser.ParsedToken;
+import org.mockito.Mockito;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+
+/**
+ * 压测令牌
+ * 压测不依赖认证服务签发的令牌，以 loadtest.{userId} 形式的令牌代表教师用户；
+ * 仍经过 JwtAuthenticationFilter 与 JwtClaimsCache，只是不验签
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestSecurityConfig {
+
+    static final String TOKEN_PREFIX = "loadtest.";
+
+    @Bean
+    @Primary
+    public JwtClaimsParser loadTestJwtClaimsParser() {
+        JwtClaimsParser jwtClaimsParser = Mockito.mock(JwtClaimsParser.class);
+        Mockito.when(jwtClaimsParser.parse(anyString())).thenAnswer(invocation -> {
+            String token = invocation.getArgument(0);
+            return token.startsWith(TOKEN_PREFIX)
+                    ? new ParsedToken(token.substring(TOKEN_PREFIX.length()), List.of("ROLE_TEACHER"), -1)
+                    : null;
+        });
+        return jwtClaimsParser;
+    }
+}
@@ -0,0 +1,197 @@
+package com.osc.oscms.materialservice.client;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.osc.oscms.common.response.ApiResponse;
+import com.osc.oscms.materialservice.config.CourseServiceCacheProperties;
+import com.osc.oscms.materialservice.security.SecurityContextTaskDecorator;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 课程服务查询缓存
+ * 位于 CourseServiceClient 之前：容量有界、按结果区分过期时间（不存在的结果更快过期），
+ * 同一 key 的并发未命中只发起一次远程调用，条目到达刷新时间后在后台刷新并继续返回旧值，
+ * 课程服务变慢或短暂不可用时不阻塞请求
+ */
+@Component
+public class CourseServiceCache {
+
+    private final CourseServiceClient courseServiceClient;
+    private final ThreadPoolTaskExecutor refreshExecutor;
+
+    private final Counter coalesced;
+
+    private final CoalescingCache<Long, Optional<Map<String, Object>>> courses;
+    private final CoalescingCache<Long, Optional<Map<String, Object>>> classes;
+    private final CoalescingCache<PermissionKey, Boolean> permissions;
+
+    public CourseServiceCache(CourseServiceClient courseServiceClient, CourseServiceCacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.courseServiceClient = courseServiceClient;
+
+        this.refreshExecutor = new ThreadPoolTaskExecutor();
+        refreshExecutor.setCorePoolSize(properties.getRefreshThreads());
+        refreshExecutor.setMaxPoolSize(properties.getRefreshThreads());
+        refreshExecutor.setQueueCapacity(1_000);
+        refreshExecutor.setThreadNamePrefix("course-cache-refresh-");
+        refreshExecutor.setTaskDecorator(new SecurityContextTaskDecorator());
+        refreshExecutor.initialize();
+
+        this.coalesced = Counter.builder("course.service.cache.coalesced")
+                .description("Cache misses that waited on another caller's course service call instead of issuing their own")
+                .register(meterRegistry);
+
+        this.courses = new CoalescingCache<>(properties, Optional::isPresent, this::loadCourse);
+        this.classes = new CoalescingCache<>(properties, Optional::isPresent, this::loadClass);
+        this.permissions = new CoalescingCache<>(properties, Boolean::booleanValue, this::loadPermission);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, courses.cache, "courseService.courses");
+        CaffeineCacheMetrics.monitor(meterRegistry, classes.cache, "courseService.classes");
+        CaffeineCacheMetrics.monitor(meterRegistry, permissions.cache, "courseService.permissions");
+    }
+
+    /**
+     * 获取课程信息，课程不存在时返回空
+     */
+    public Optional<Map<String, Object>> getCourse(Long courseId) {
+        return courses.get(courseId);
+    }
+
+    /**
+     * 获取班级信息，班级不存在时返回空
+     */
+    public Optional<Map<String, Object>> getClassInfo(Long classId) {
+        return classes.get(classId);
+    }
+
+    /**
+     * 验证用户是否有课程访问权限
+     */
+    public boolean hasUserCoursePermission(Long courseId, String userId) {
+        return permissions.get(new PermissionKey(courseId, userId));
+    }
+
+    private Optional<Map<String, Object>> loadCourse(Long courseId) {
+        try {
+            return dataOf(courseServiceClient.getCourseById(courseId));
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Map<String, Object>> loadClass(Long classId) {
+        try {
+            return dataOf(courseServiceClient.getClassById(classId));
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    private Boolean loadPermission(PermissionKey key) {
+        try {
+            return dataOf(courseServiceClient.hasUserCoursePermission(key.courseId(), key.userId()))
+                    .orElse(Boolean.FALSE);
+        } catch (FeignException.NotFound e) {
+            return Boolean.FALSE;
+        }
+    }
+
+    private <T> Optional<T> dataOf(ApiResponse<T> response) {
+        if (response == null || !response.isSuccess()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(response.getData());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    private record PermissionKey(Long courseId, String userId) {
+    }
+
+    /**
+     * 单类查询的缓存
+     * 未命中的 key 以 CompletableFuture 登记为正在加载，同一 key 的其他未命中等待它完成，并计为被合并的请求；
+     * 已缓存的条目（包括正在后台刷新的旧值）直接返回，不计入
+     */
+    private class CoalescingCache<K, V> {
+
+        private final LoadingCache<K, V> cache;
+        private final ConcurrentMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+
+        CoalescingCache(CourseServiceCacheProperties properties, Predicate<V> positive, Function<K, V> loader) {
+            long ttl = properties.getTtl().toNanos();
+            long negativeTtl = properties.getNegativeTtl().toNanos();
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(properties.getMaximumSize())
+                    .expireAfter(new Expiry<K, V>() {
+                        @Override
+                        public long expireAfterCreate(K key, V value, long currentTime) {
+                            return positive.test(value) ? ttl : negativeTtl;
+                        }
+
+                        @Override
+                        public long expireAfterUpdate(K key, V value, long currentTime, long currentDuration) {
+                            return positive.test(value) ? ttl : negativeTtl;
+                        }
+
+                        @Override
+                        public long expireAfterRead(K key, V value, long currentTime, long currentDuration) {
+                            return currentDuration;
+                        }
+                    })
+                    .refreshAfterWrite(properties.getRefreshAfter())
+                    .executor(refreshExecutor)
+                    .recordStats()
+                    .build(loader::apply);
+        }
+
+        V get(K key) {
+            // 已缓存时由 LoadingCache 记录命中并按需触发后台刷新
+            if (cache.policy().getIfPresentQuietly(key) != null) {
+                return cache.get(key);
+            }
+            CompletableFuture<V> load = new CompletableFuture<>();
+            CompletableFuture<V> inFlight = loading.putIfAbsent(key, load);
+            if (inFlight != null) {
+                coalesced.increment();
+                try {
+                    return inFlight.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof Error error) {
+                        throw error;
+                    }
+                    throw e.getCause() instanceof RuntimeException cause ? cause : e;
+                }
+            }
+            try {
+                V value = cache.get(key);
+                load.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                load.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(key, load);
+            }
+        }
+    }
+}
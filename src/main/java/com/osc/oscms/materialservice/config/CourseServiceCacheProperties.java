@@ -0,0 +1,41 @@
+package com.osc.oscms.materialservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 课程服务调用缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "course-service.cache")
+public class CourseServiceCacheProperties {
+
+    /**
+     * 每类查询最多缓存的条目数
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * 查询成功结果的过期时间
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+
+    /**
+     * 不存在 / 无权限结果的过期时间
+     */
+    private Duration negativeTtl = Duration.ofSeconds(30);
+
+    /**
+     * 超过该时间后访问会触发后台刷新，刷新完成前继续返回旧值
+     */
+    private Duration refreshAfter = Duration.ofMinutes(1);
+
+    /**
+     * 后台刷新线程数
+     */
+    private int refreshThreads = 2;
+}
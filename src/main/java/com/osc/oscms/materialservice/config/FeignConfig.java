@@ -7,6 +7,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+/**
+ * Feign 调用配置
+ * 令牌优先取自当前 SecurityContext 中的认证凭证，随 SecurityContext 传递的异步任务同样可用；
+ * 其他方式设置的认证再回退到 JwtTokenHolder
+ */
 @Configuration
 public class FeignConfig {
 
@@ -16,7 +21,9 @@ public class FeignConfig {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
             if (authentication != null && authentication.isAuthenticated() &&
                     !"anonymousUser".equals(authentication.getName())) {
-                String token = JwtTokenHolder.getCurrentToken();
+                String token = authentication.getCredentials() instanceof String credentials
+                        ? credentials
+                        : JwtTokenHolder.getCurrentToken();
                 if (token != null) {
                     template.header("Authorization", "Bearer " + token);
                 }
@@ -24,5 +31,3 @@ public class FeignConfig {
         };
     }
 }
-
-
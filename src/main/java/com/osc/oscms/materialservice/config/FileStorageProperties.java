@@ -0,0 +1,192 @@
+package com.osc.oscms.materialservice.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 文件存储配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "file.storage")
+public class FileStorageProperties {
+
+    /**
+     * 存储根目录
+     */
+    private String path = "uploads/materials/";
+
+    /**
+     * 文件访问基础URL
+     */
+    private String baseUrl;
+
+    /**
+     * 是否启用内容寻址存储（相同内容只保存一份）
+     */
+    private boolean contentAddressed = false;
+
+    /**
+     * 目录布局
+     */
+    private Layout layout = Layout.FLAT;
+
+    /**
+     * 存储 I/O 并发与排队配置
+     */
+    private Io io = new Io();
+
+    /**
+     * 分片上传配置
+     */
+    private ChunkedUpload chunkedUpload = new ChunkedUpload();
+
+    /**
+     * 热点文件缓存配置
+     */
+    private HotCache hotCache = new HotCache();
+
+    /**
+     * 文件回收配置
+     */
+    private Reclaim reclaim = new Reclaim();
+
+    public enum Layout {
+        /**
+         * 所有文件直接位于根目录
+         */
+        FLAT,
+        /**
+         * 按存储键前缀分散到两级子目录，如 ab/cd/abcd...
+         */
+        SHARDED
+    }
+
+    @Data
+    public static class Io {
+
+        /**
+         * 磁盘读取（下载时打开文件、逐块读取文件内容、将热点文件载入缓存；不含向客户端写出），优先于后台任务
+         */
+        private IoLane read = new IoLane(64, 256, Duration.ofSeconds(5));
+
+        /**
+         * 文件写入（上传、分片上传）；concurrency 同时也是批量上传并行写入的线程数
+         */
+        private IoLane write = new IoLane(8, 64, Duration.ofSeconds(30));
+
+        /**
+         * 文件删除（后台回收），读取有排队时让行
+         */
+        private IoLane delete = new IoLane(2, 1_000, Duration.ofMinutes(5));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IoLane {
+
+        /**
+         * 同时执行的操作数
+         */
+        private int concurrency;
+
+        /**
+         * 最多排队等待的操作数，超出时立即拒绝（429）
+         */
+        private int queueCapacity;
+
+        /**
+         * 排队的最长等待时间，超时后拒绝（429）
+         */
+        private Duration maxWait;
+    }
+
+    @Data
+    public static class ChunkedUpload {
+
+        /**
+         * 分片大小
+         */
+        private DataSize chunkSize = DataSize.ofMegabytes(8);
+
+        /**
+         * 分片上传允许的最大文件大小
+         */
+        private DataSize maxFileSize = DataSize.ofGigabytes(10);
+
+        /**
+         * 会话无活动超过该时间后被清理
+         */
+        private Duration sessionTtl = Duration.ofHours(24);
+    }
+
+    @Data
+    public static class HotCache {
+
+        /**
+         * 是否启用热点文件缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存文件的总字节预算
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+
+        /**
+         * 单个文件超过该大小时不缓存
+         */
+        private DataSize maxFileSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 超过该时间未被访问的文件移出缓存
+         */
+        private Duration expireAfterAccess = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class Reclaim {
+
+        /**
+         * 文件在该时间内被修改过（可能正被新上传复用）时暂不删除，由定时任务稍后重试
+         */
+        private Duration gracePeriod = Duration.ofMinutes(10);
+
+        /**
+         * 是否定期清理未被任何版本引用的孤立文件
+         */
+        private boolean reconcileEnabled = true;
+
+        /**
+         * 孤立文件清理的执行间隔
+         */
+        private Duration reconcileInterval = Duration.ofHours(6);
+
+        /**
+         * 文件最近修改时间早于该时间才视为孤立文件，避免误删上传中尚未提交的文件
+         */
+        private Duration orphanMinAge = Duration.ofHours(24);
+
+        /**
+         * 每批核对的文件数
+         */
+        private int batchSize = 500;
+
+        /**
+         * 两批之间的停顿，限制对磁盘和数据库的压力
+         */
+        private Duration batchPause = Duration.ofSeconds(1);
+
+        /**
+         * 单次清理最多删除的文件数
+         */
+        private int maxDeletesPerRun = 5_000;
+    }
+}
@@ -0,0 +1,31 @@
+package com.osc.oscms.materialservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 已验证令牌缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.claims-cache")
+public class JwtClaimsCacheProperties {
+
+    /**
+     * 是否缓存验证结果
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的令牌数
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * 单个令牌的最长缓存时间；令牌过期（exp）更早时以 exp 为准
+     */
+    private Duration maxTtl = Duration.ofMinutes(5);
+}
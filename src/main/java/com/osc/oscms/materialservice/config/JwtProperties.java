@@ -0,0 +1,19 @@
+package com.osc.oscms.materialservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * JWT 配置，与签发令牌的认证服务共用同一密钥
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+
+    /**
+     * HS256 签名密钥
+     */
+    private String secret;
+}
@@ -0,0 +1,36 @@
+package com.osc.oscms.materialservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 资料变更日志配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "material.change-feed")
+public class MaterialChangeFeedProperties {
+
+    /**
+     * 是否写入并轮询变更日志；单实例部署可关闭
+     */
+    private boolean enabled = true;
+
+    /**
+     * 轮询间隔，即其他实例缓存的最大延迟
+     */
+    private Duration pollInterval = Duration.ofSeconds(2);
+
+    /**
+     * 自增ID出现空洞时等待较早事务提交的时间，超过后视为已回滚
+     */
+    private Duration gapTimeout = Duration.ofMinutes(1);
+
+    /**
+     * 变更日志保留时间
+     */
+    private Duration retention = Duration.ofDays(1);
+}
@@ -0,0 +1,31 @@
+package com.osc.oscms.materialservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 资料列表缓存配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "material.listing-cache")
+public class MaterialListingCacheProperties {
+
+    /**
+     * 是否启用资料列表缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 最多缓存的列表数（课程、章节、班级列表合计）
+     */
+    private long maximumSize = 5_000;
+
+    /**
+     * 列表的最长缓存时间，写操作会提前失效受影响的列表
+     */
+    private Duration ttl = Duration.ofMinutes(30);
+}
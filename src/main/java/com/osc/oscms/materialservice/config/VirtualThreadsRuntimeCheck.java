@@ -0,0 +1,28 @@
+package com.osc.oscms.materialservice.config;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * 虚拟线程运行时检查
+ * 编译目标为 Java 17，低于 Java 21 的运行时上 spring.threads.virtual.enabled 不会生效，服务静默按平台线程运行；
+ * 开启该配置而运行时版本不足时直接启动失败
+ */
+@Component
+public class VirtualThreadsRuntimeCheck {
+
+    static final String PROPERTY = "spring.threads.virtual.enabled";
+
+    static final int MIN_JAVA_VERSION = 21;
+
+    public VirtualThreadsRuntimeCheck(Environment environment) {
+        check(environment, Runtime.version().feature());
+    }
+
+    static void check(Environment environment, int javaVersion) {
+        if (environment.getProperty(PROPERTY, Boolean.class, false) && javaVersion < MIN_JAVA_VERSION) {
+            throw new IllegalStateException(PROPERTY + "=true requires Java " + MIN_JAVA_VERSION
+                    + " or later, but the runtime is Java " + javaVersion);
+        }
+    }
+}
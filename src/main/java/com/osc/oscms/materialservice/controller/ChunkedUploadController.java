@@ -0,0 +1,84 @@
+package com.osc.oscms.materialservice.controller;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.common.response.ApiResponse;
+import com.osc.oscms.materialservice.dto.UploadSessionDto;
+import com.osc.oscms.materialservice.service.ChunkedUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 资料分片上传控制器 - 大文件按分片上传，支持断点续传
+ */
+@RestController
+@RequestMapping("/materials/uploads")
+@Tag(name = "Chunked Material Upload", description = "资料分片上传接口")
+@RequiredArgsConstructor
+@Validated
+public class ChunkedUploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    @Operation(summary = "创建上传会话", description = "为新资料（courseId）或新版本（materialId）创建分片上传会话")
+    public ApiResponse<UploadSessionDto> createSession(
+            @RequestParam(required = false) Long courseId,
+            @RequestParam(required = false) Long materialId,
+            @RequestParam String filename,
+            @RequestParam long totalSize,
+            Authentication authentication) {
+        UploadSessionDto session = chunkedUploadService.createSession(courseId, materialId, filename, totalSize,
+                authentication.getName());
+        return ApiResponse.ok(session);
+    }
+
+    @GetMapping("/{uploadId}")
+    @Operation(summary = "查询上传会话", description = "查询会话信息及已接收的分片，用于断点续传")
+    public ApiResponse<UploadSessionDto> getSession(
+            @PathVariable String uploadId,
+            Authentication authentication) {
+        return ApiResponse.ok(chunkedUploadService.getSession(uploadId, authentication.getName()));
+    }
+
+    @PutMapping("/{uploadId}/chunks/{chunkIndex}")
+    @Operation(summary = "上传分片", description = "以请求体原始字节上传指定序号的分片，重复上传会覆盖")
+    public ApiResponse<Void> uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int chunkIndex,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        chunkedUploadService.writeChunk(uploadId, chunkIndex, request.getContentLengthLong(),
+                request.getInputStream(), authentication.getName());
+        return ApiResponse.ok();
+    }
+
+    @PostMapping("/{uploadId}/commit")
+    @Operation(summary = "完成上传", description = "所有分片上传完成后创建资料或新版本")
+    public ApiResponse<MaterialDto> commit(
+            @PathVariable String uploadId,
+            @RequestParam(required = false) Integer chapterOrder,
+            @RequestParam(required = false) List<String> visibleClassIds,
+            @RequestParam(required = false) String description,
+            Authentication authentication) {
+        MaterialDto result = chunkedUploadService.commit(uploadId, chapterOrder, visibleClassIds, description,
+                authentication.getName());
+        return ApiResponse.ok(result);
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @Operation(summary = "取消上传", description = "取消上传会话并删除已上传的分片")
+    public ApiResponse<Void> abort(
+            @PathVariable String uploadId,
+            Authentication authentication) {
+        chunkedUploadService.abort(uploadId, authentication.getName());
+        return ApiResponse.ok();
+    }
+}
@@ -0,0 +1,63 @@
+package com.osc.oscms.materialservice.controller;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.materialservice.dto.MaterialDownload;
+import com.osc.oscms.materialservice.dto.MaterialListingStamp;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 条件请求处理
+ * 为下载、资料详情和课程资料列表生成 ETag / Last-Modified，
+ * 客户端缓存仍然有效时直接返回 304，不再读取文件或查询完整列表
+ */
+@Component
+public class ConditionalRequests {
+
+    /**
+     * 允许浏览器保存私有副本，但每次使用前都需重新验证；
+     * 显式设置后 Spring Security 不再写入默认的 no-store
+     */
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    /**
+     * 下载文件的 ETag：内容摘要，未计算摘要的历史版本使用版本ID
+     */
+    public String etag(MaterialDownload download) {
+        String tag = download.getContentHash() != null ? download.getContentHash() : "v" + download.getVersionId();
+        return "\"" + tag + "\"";
+    }
+
+    public String etag(MaterialDto material) {
+        return "\"m" + material.getId() + "-" + toEpochMilli(material.getUpdatedAt()) + "\"";
+    }
+
+    /**
+     * 课程资料列表的 ETag：列表版本，附带最近变化时间以免数据库重建后版本从头计数时与旧 ETag 相同
+     */
+    public String etag(MaterialListingStamp stamp) {
+        return "\"c" + stamp.getCourseId() + "-" + stamp.getVersion() + "-"
+                + toEpochMilli(stamp.getLastUpdatedAt()) + "\"";
+    }
+
+    /**
+     * 校验 If-None-Match / If-Modified-Since；返回 true 时响应已置为 304，调用方直接返回即可
+     */
+    public boolean checkNotModified(ServletWebRequest webRequest, String etag, LocalDateTime lastModified) {
+        HttpServletResponse response = webRequest.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return webRequest.checkNotModified(etag, toEpochMilli(lastModified));
+    }
+
+    public long toEpochMilli(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,262 @@
+package com.osc.oscms.materialservice.controller;
+
+import com.osc.oscms.materialservice.storage.CachedFileResource;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor.Lane;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 资料文件下载响应写出器
+ * 以流的方式把文件写入响应，支持 Range / If-Range（断点续传、PDF 按需加载），
+ * 单次下载占用的堆内存与文件大小无关
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DownloadResponseWriter {
+
+    /**
+     * 每次占用读取名额读入的字节数
+     */
+    private static final int READ_CHUNK_SIZE = 64 * 1024;
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final StorageIoExecutor storageIoExecutor;
+
+    /**
+     * 写出资源内容；请求带合法 Range 时返回 206，所有区间都无法满足时返回 416
+     * etag / lastModified 描述资料版本而非磁盘文件，内容寻址存储下同一文件可能被多个版本共享；
+     * contentType 取自版本记录，为空时按二进制流返回。
+     * 打开文件（MaterialService.openDownload）时按读取类别排队准入；写出时每读一块磁盘内容占用一次读取名额，
+     * 向客户端写出时不占用，慢速客户端不会占满读取并发，后台删除在有读取排队时让行。
+     * 热点缓存文件已映射到内存，直接写出。写出结束后释放热点缓存文件的引用（resource 不能再使用）
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, Resource resource,
+            String filename, String contentType, String etag, long lastModified) throws IOException {
+        try {
+            writeResource(request, response, resource, filename, contentType, etag, lastModified);
+        } finally {
+            if (resource instanceof CachedFileResource cached) {
+                cached.release();
+            }
+        }
+    }
+
+    private void writeResource(HttpServletRequest request, HttpServletResponse response, Resource resource,
+            String filename, String contentType, String etag, long lastModified) throws IOException {
+        long contentLength = resource.contentLength();
+        String mediaType = StringUtils.hasText(contentType) ? contentType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+        // 非 ASCII 文件名按 RFC 5987 编码（filename*=UTF-8''...），否则 Tomcat 会丢弃该响应头
+        ContentDisposition disposition = ContentDisposition.attachment()
+                .filename(filename, StandardCharsets.UTF_8)
+                .build();
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (lastModified >= 0) {
+            response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        }
+
+        List<HttpRange> ranges = resolveRanges(request, etag, lastModified);
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(mediaType);
+            response.setContentLengthLong(contentLength);
+            transfer(resource, 0, contentLength, response.getOutputStream());
+            return;
+        }
+
+        List<long[]> bounds = satisfiableRanges(ranges, contentLength);
+        if (bounds.isEmpty()) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+            return;
+        }
+
+        response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+        if (bounds.size() == 1) {
+            long start = bounds.get(0)[0];
+            long end = bounds.get(0)[1];
+            response.setContentType(mediaType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(start, end, contentLength));
+            response.setContentLengthLong(end - start + 1);
+            transfer(resource, start, end - start + 1, response.getOutputStream());
+            return;
+        }
+
+        // 多个区间使用 multipart/byteranges 响应
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        ServletOutputStream out = response.getOutputStream();
+        for (long[] bound : bounds) {
+            String partHeader = "\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(bound[0], bound[1], contentLength) + "\r\n\r\n";
+            out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+            transfer(resource, bound[0], bound[1] - bound[0] + 1, out);
+        }
+        out.write(("\r\n--" + boundary + "--").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 解析 Range 请求头；If-Range 与当前文件不匹配时按完整内容返回
+     */
+    private List<HttpRange> resolveRanges(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (!StringUtils.hasText(rangeHeader)) {
+            return List.of();
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (StringUtils.hasText(ifRange) && !ifRangeMatches(request, ifRange, etag, lastModified)) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            // 无法解析的 Range 按规范忽略
+            log.debug("Ignoring malformed Range header: {}", rangeHeader);
+            return List.of();
+        }
+    }
+
+    /**
+     * 计算可满足的区间（闭区间，按起点排序），无法满足的区间跳过；
+     * 重叠或相邻的区间合并为一个，写出的总字节数不超过文件大小，
+     * 避免 bytes=0-,0-,... 这类请求把同一内容重复写出多次
+     */
+    private List<long[]> satisfiableRanges(List<HttpRange> ranges, long contentLength) {
+        List<long[]> bounds = new ArrayList<>(ranges.size());
+        for (HttpRange range : ranges) {
+            try {
+                long start = range.getRangeStart(contentLength);
+                long end = range.getRangeEnd(contentLength);
+                if (start < contentLength && start <= end) {
+                    bounds.add(new long[] { start, end });
+                }
+            } catch (IllegalArgumentException e) {
+                log.debug("Skipping unsatisfiable range: {}", range);
+            }
+        }
+        bounds.sort(Comparator.comparingLong(bound -> bound[0]));
+
+        List<long[]> merged = new ArrayList<>(bounds.size());
+        for (long[] bound : bounds) {
+            long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && bound[0] <= last[1] + 1) {
+                last[1] = Math.max(last[1], bound[1]);
+            } else {
+                merged.add(bound);
+            }
+        }
+        return merged;
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, String ifRange, String etag, long lastModified) {
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range 要求强比较，弱实体标签一律视为不匹配
+            return ifRange.equals(etag);
+        }
+        try {
+            long ifRangeDate = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return ifRangeDate >= 0 && lastModified >= 0 && lastModified / 1000 == ifRangeDate / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String contentRange(long start, long end, long contentLength) {
+        return "bytes " + start + "-" + end + "/" + contentLength;
+    }
+
+    /**
+     * 将资源的指定区间写入输出流；缓存文件直接写出对应区间，
+     * 文件资源逐块读入缓冲区（每块占用一次读取名额）后写出。
+     * 不使用 FileChannel.transferTo：它把磁盘读取和向客户端写出合在一次调用中，无法只对磁盘读取限流
+     */
+    private void transfer(Resource resource, long position, long count, ServletOutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        if (resource instanceof CachedFileResource cached) {
+            ByteBuffer slice = cached.slice(position, count);
+            while (slice.hasRemaining()) {
+                target.write(slice);
+            }
+            return;
+        }
+        try (ReadableByteChannel source = resource.readableChannel()) {
+            if (source instanceof FileChannel fileChannel) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_CHUNK_SIZE, Math.max(count, 1)));
+                long offset = position;
+                long end = position + count;
+                while (offset < end) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), end - offset));
+                    long readAt = offset;
+                    int read = storageIoExecutor.callAdmitted(Lane.READ, () -> fileChannel.read(buffer, readAt));
+                    if (read < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                    offset += read;
+                }
+                return;
+            }
+            copy(source, position, count, target);
+        }
+    }
+
+    private void copy(ReadableByteChannel source, long position, long count, WritableByteChannel target)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+        long skipped = 0;
+        long remaining = count;
+        while (remaining > 0) {
+            buffer.clear();
+            int read = storageIoExecutor.callAdmitted(Lane.READ, () -> source.read(buffer));
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            if (skipped < position) {
+                int skip = (int) Math.min(position - skipped, buffer.remaining());
+                buffer.position(buffer.position() + skip);
+                skipped += skip;
+            }
+            if (buffer.remaining() > remaining) {
+                buffer.limit(buffer.position() + (int) remaining);
+            }
+            remaining -= buffer.remaining();
+            while (buffer.hasRemaining()) {
+                target.write(buffer);
+            }
+        }
+    }
+}
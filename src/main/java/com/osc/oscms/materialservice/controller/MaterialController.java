@@ -1,22 +1,34 @@
 package com.osc.oscms.materialservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.osc.oscms.common.response.ApiResponse;
 import com.osc.oscms.common.dto.material.MaterialDto;
 import com.osc.oscms.common.dto.material.MaterialVersionDto;
 import com.osc.oscms.common.dto.material.MaterialUploadDto;
+import com.osc.oscms.materialservice.dto.BulkUploadResult;
+import com.osc.oscms.materialservice.dto.CourseMaterialStats;
+import com.osc.oscms.materialservice.dto.MaterialBatchResult;
+import com.osc.oscms.materialservice.dto.MaterialDownload;
+import com.osc.oscms.materialservice.dto.MaterialListingStamp;
+import com.osc.oscms.materialservice.dto.MaterialPage;
 import com.osc.oscms.materialservice.service.MaterialService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -30,6 +42,9 @@ import java.util.List;
 public class MaterialController {
 
     private final MaterialService materialService;
+    private final DownloadResponseWriter downloadResponseWriter;
+    private final ConditionalRequests conditionalRequests;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/upload")
     @Operation(summary = "上传教学资料", description = "上传新的教学资料文件")
@@ -52,6 +67,25 @@ public class MaterialController {
         return ApiResponse.ok(result);
     }
 
+    @PostMapping("/upload/bulk")
+    @Operation(summary = "批量上传教学资料", description = "一次上传多个文件，每个文件创建一个资料，未指定章节时全部放入新章节")
+    public ApiResponse<List<BulkUploadResult>> bulkUploadMaterials(
+            @RequestParam Long courseId,
+            @RequestParam(required = false) Integer chapterOrder,
+            @RequestParam(required = false) List<String> visibleClassIds,
+            @RequestParam(required = false) String description,
+            @RequestParam("files") List<MultipartFile> files) {
+
+        MaterialUploadDto uploadDto = new MaterialUploadDto();
+        uploadDto.setChapterOrder(chapterOrder);
+        uploadDto.setVisibleForClasses(visibleClassIds);
+        uploadDto.setDescription(description);
+        uploadDto.setType("DOCUMENT");
+
+        List<BulkUploadResult> results = materialService.bulkUploadMaterials(courseId, uploadDto, files);
+        return ApiResponse.ok(results);
+    }
+
     @PutMapping("/{materialId}")
     @Operation(summary = "更新资料信息", description = "更新教学资料的基本信息")
     public ApiResponse<MaterialDto> updateMaterial(
@@ -87,23 +121,87 @@ public class MaterialController {
 
     @GetMapping("/{materialId}")
     @Operation(summary = "获取资料详情", description = "根据资料ID获取资料的详细信息和版本历史")
-    public ApiResponse<MaterialDto> getMaterialById(@PathVariable Long materialId) {
+    public ApiResponse<MaterialDto> getMaterialById(@PathVariable Long materialId, ServletWebRequest webRequest) {
         MaterialDto material = materialService.getMaterialById(materialId);
+        if (conditionalRequests.checkNotModified(webRequest, conditionalRequests.etag(material),
+                material.getUpdatedAt())) {
+            return null;
+        }
         return ApiResponse.ok(material);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "批量获取资料详情", description = "根据资料ID列表批量获取资料，结果按请求顺序排列并列出不存在的ID")
+    public ApiResponse<MaterialBatchResult> getMaterialsByIds(@RequestBody List<Long> materialIds) {
+        MaterialBatchResult result = materialService.getMaterialsByIds(materialIds);
+        return ApiResponse.ok(result);
+    }
+
     @GetMapping("/course/{courseId}")
     @Operation(summary = "获取课程资料列表", description = "根据课程ID获取该课程的所有教学资料")
-    public ApiResponse<List<MaterialDto>> getMaterialsByCourse(@PathVariable Long courseId) {
+    public ApiResponse<List<MaterialDto>> getMaterialsByCourse(@PathVariable Long courseId,
+            ServletWebRequest webRequest) {
+        if (listingNotModified(courseId, webRequest)) {
+            return null;
+        }
         List<MaterialDto> materials = materialService.getMaterialsByCourseId(courseId);
         return ApiResponse.ok(materials);
     }
 
+    @GetMapping("/course/{courseId}/page")
+    @Operation(summary = "分页获取课程资料", description = "按游标分页获取课程资料，cursor 取上一页返回的 nextCursor")
+    public ApiResponse<MaterialPage> getMaterialsPageByCourse(
+            @PathVariable Long courseId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            ServletWebRequest webRequest) {
+        if (listingNotModified(courseId, webRequest)) {
+            return null;
+        }
+        MaterialPage page = materialService.getMaterialsPageByCourseId(courseId, cursor, limit);
+        return ApiResponse.ok(page);
+    }
+
+    @GetMapping("/course/{courseId}/stream")
+    @Operation(summary = "流式获取课程资料", description = "以 NDJSON 格式逐行返回课程的全部资料，边查询边写出")
+    public void streamMaterialsByCourse(
+            @PathVariable Long courseId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (listingNotModified(courseId, new ServletWebRequest(request, response))) {
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream out = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writer();
+        materialService.streamMaterialsByCourseId(courseId, material -> {
+            try {
+                out.write(writer.writeValueAsBytes(material));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "批量统计课程资料", description = "统计多个课程的资料数、各章节资料数、版本数和文件总大小")
+    public ApiResponse<List<CourseMaterialStats>> getCourseStats(@RequestParam List<Long> courseIds) {
+        List<CourseMaterialStats> stats = materialService.getCourseStats(courseIds);
+        return ApiResponse.ok(stats);
+    }
+
     @GetMapping("/course/{courseId}/class/{classId}")
     @Operation(summary = "获取班级可见资料", description = "获取指定班级可见的教学资料")
     public ApiResponse<List<MaterialDto>> getVisibleMaterials(
             @PathVariable Long courseId,
-            @PathVariable Long classId) {
+            @PathVariable Long classId,
+            ServletWebRequest webRequest) {
+        if (listingNotModified(courseId, webRequest)) {
+            return null;
+        }
         List<MaterialDto> materials = materialService.getVisibleMaterialsByCourseAndClass(courseId, classId);
         return ApiResponse.ok(materials);
     }
@@ -112,7 +210,11 @@ public class MaterialController {
     @Operation(summary = "获取章节资料", description = "获取指定章节的教学资料")
     public ApiResponse<List<MaterialDto>> getMaterialsByChapter(
             @PathVariable Long courseId,
-            @PathVariable Integer chapterOrder) {
+            @PathVariable Integer chapterOrder,
+            ServletWebRequest webRequest) {
+        if (listingNotModified(courseId, webRequest)) {
+            return null;
+        }
         List<MaterialDto> materials = materialService.getMaterialsByChapter(courseId, chapterOrder);
         return ApiResponse.ok(materials);
     }
@@ -143,24 +245,32 @@ public class MaterialController {
     }
 
     @GetMapping("/{materialId}/download")
-    @Operation(summary = "下载资料文件", description = "下载指定资料的最新版本或指定版本")
-    public ResponseEntity<byte[]> downloadMaterial(
+    @Operation(summary = "下载资料文件", description = "下载指定资料的最新版本或指定版本，支持 Range 分段下载")
+    public void downloadMaterial(
             @PathVariable Long materialId,
-            @RequestParam(required = false) Integer version) {
-
-        byte[] fileContent = materialService.downloadMaterial(materialId, version);
-
-        // 获取文件信息用于设置响应头
-        MaterialVersionDto materialVersion = version != null
-                ? materialService.getMaterialVersion(materialId, version)
-                : materialService.getMaterialVersions(materialId).get(0);
+            @RequestParam(required = false) Integer version,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        MaterialDownload download = materialService.downloadMaterial(materialId, version);
+        String etag = conditionalRequests.etag(download);
+        if (conditionalRequests.checkNotModified(new ServletWebRequest(request, response), etag,
+                download.getUploadedAt())) {
+            return;
+        }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDispositionFormData("attachment", materialVersion.getFilename());
-        headers.setContentLength(fileContent.length);
+        downloadResponseWriter.write(request, response, materialService.openDownload(download),
+                download.getFilename(), download.getContentType(), etag,
+                conditionalRequests.toEpochMilli(download.getUploadedAt()));
+    }
 
-        return new ResponseEntity<>(fileContent, headers, HttpStatus.OK);
+    /**
+     * 课程资料列表版本未变时返回 304，不再查询完整列表
+     */
+    private boolean listingNotModified(Long courseId, ServletWebRequest webRequest) {
+        MaterialListingStamp stamp = materialService.getListingStamp(courseId);
+        return conditionalRequests.checkNotModified(webRequest, conditionalRequests.etag(stamp),
+                stamp.getLastUpdatedAt());
     }
 }
 
@@ -175,6 +285,8 @@ public class MaterialController {
 class CourseMaterialController {
 
     private final MaterialService materialService;
+    private final DownloadResponseWriter downloadResponseWriter;
+    private final ConditionalRequests conditionalRequests;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "上传课程资料", description = "上传文件到指定课程")
@@ -202,8 +314,12 @@ class CourseMaterialController {
     public ApiResponse<List<MaterialDto>> getCourseResources(
             @PathVariable Long courseId,
             @RequestParam(required = false) String type,
-            @RequestParam(required = false) Integer chapterOrder) {
+            @RequestParam(required = false) Integer chapterOrder,
+            ServletWebRequest webRequest) {
 
+        if (listingNotModified(courseId, webRequest)) {
+            return null;
+        }
         if (chapterOrder != null) {
             return ApiResponse.ok(materialService.getMaterialsByChapter(courseId, chapterOrder));
         } else {
@@ -215,7 +331,8 @@ class CourseMaterialController {
     @Operation(summary = "获取资料详情", description = "根据ID获取资料详细信息")
     public ApiResponse<MaterialDto> getMaterialById(
             @PathVariable Long courseId,
-            @PathVariable Long materialId) {
+            @PathVariable Long materialId,
+            ServletWebRequest webRequest) {
 
         MaterialDto material = materialService.getMaterialById(materialId);
 
@@ -224,6 +341,10 @@ class CourseMaterialController {
             throw new RuntimeException("资料不属于指定课程");
         }
 
+        if (conditionalRequests.checkNotModified(webRequest, conditionalRequests.etag(material),
+                material.getUpdatedAt())) {
+            return null;
+        }
         return ApiResponse.ok(material);
     }
 
@@ -261,38 +382,46 @@ class CourseMaterialController {
     }
 
     @GetMapping("/{materialId}/download")
-    @Operation(summary = "下载资料文件", description = "下载指定的资料文件")
-    public ResponseEntity<byte[]> downloadMaterial(
+    @Operation(summary = "下载资料文件", description = "下载指定的资料文件，支持 Range 分段下载")
+    public void downloadMaterial(
             @PathVariable Long courseId,
             @PathVariable Long materialId,
-            @RequestParam(required = false) Integer version) {
+            @RequestParam(required = false) Integer version,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
-        // 获取资料信息并验证
-        MaterialDto material = materialService.getMaterialById(materialId);
-        if (!material.getCourseId().equals(courseId)) {
+        // 一次查询取得文件句柄（不读入内存）及所属课程
+        MaterialDownload download = materialService.downloadMaterial(materialId, version);
+        if (!download.getCourseId().equals(courseId)) {
             throw new RuntimeException("资料不属于指定课程");
         }
 
-        // 下载文件内容
-        byte[] fileContent = materialService.downloadMaterial(materialId, version);
-
-        // 获取文件信息用于设置响应头
-        MaterialVersionDto materialVersion = version != null
-                ? materialService.getMaterialVersion(materialId, version)
-                : materialService.getMaterialVersions(materialId).get(0);
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDispositionFormData("attachment", materialVersion.getFilename());
-        headers.setContentLength(fileContent.length);
+        String etag = conditionalRequests.etag(download);
+        if (conditionalRequests.checkNotModified(new ServletWebRequest(request, response), etag,
+                download.getUploadedAt())) {
+            return;
+        }
 
-        return new ResponseEntity<>(fileContent, headers, HttpStatus.OK);
+        downloadResponseWriter.write(request, response, materialService.openDownload(download),
+                download.getFilename(), download.getContentType(), etag,
+                conditionalRequests.toEpochMilli(download.getUploadedAt()));
     }
 
     @GetMapping("/count")
     @Operation(summary = "统计资料数量", description = "统计课程的资料总数")
-    public ApiResponse<Integer> countMaterials(@PathVariable Long courseId) {
-        List<MaterialDto> materials = materialService.getMaterialsByCourseId(courseId);
-        return ApiResponse.ok(materials.size());
+    public ApiResponse<Long> countMaterials(@PathVariable Long courseId, ServletWebRequest webRequest) {
+        if (listingNotModified(courseId, webRequest)) {
+            return null;
+        }
+        return ApiResponse.ok(materialService.countMaterialsByCourseId(courseId));
+    }
+
+    /**
+     * 课程资料列表版本未变时返回 304，不再查询完整列表
+     */
+    private boolean listingNotModified(Long courseId, ServletWebRequest webRequest) {
+        MaterialListingStamp stamp = materialService.getListingStamp(courseId);
+        return conditionalRequests.checkNotModified(webRequest, conditionalRequests.etag(stamp),
+                stamp.getLastUpdatedAt());
     }
 }
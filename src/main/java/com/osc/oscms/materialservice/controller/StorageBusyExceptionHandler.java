@@ -0,0 +1,35 @@
+package com.osc.oscms.materialservice.controller;
+
+import com.osc.oscms.common.response.ApiResponse;
+import com.osc.oscms.materialservice.storage.StorageBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * 存储繁忙时返回 429
+ * 优先于通用的业务异常处理，响应体与其他接口一样使用 ApiResponse，客户端可按 Retry-After 退避重试
+ */
+@Slf4j
+@RestControllerAdvice
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StorageBusyExceptionHandler {
+
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(StorageBusyException.class)
+    public ResponseEntity<ApiResponse<Void>> handleStorageBusy(StorageBusyException e) {
+        log.debug("Rejecting request, storage busy");
+        ApiResponse<Void> body = new ApiResponse<>();
+        body.setSuccess(false);
+        body.setMessage(e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(body);
+    }
+}
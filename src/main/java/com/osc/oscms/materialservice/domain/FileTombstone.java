@@ -0,0 +1,25 @@
+package com.osc.oscms.materialservice.domain;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 存储文件删除墓碑实体类
+ */
+@Data
+@TableName("osc_file_tombstone")
+public class FileTombstone {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 待删除的存储文件名
+     */
+    @TableField("file_key")
+    private String fileKey;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
@@ -38,6 +38,48 @@ public class Material {
     @TableField("visible_classes")
     private String visibleClasses;
 
+    /**
+     * 最新版本ID（冗余字段，仅由 MaterialRepository.updateLatestVersion 维护）
+     */
+    @TableField(value = "latest_version_id", updateStrategy = FieldStrategy.NEVER)
+    private Long latestVersionId;
+
+    /**
+     * 最新版本号
+     */
+    @TableField(value = "latest_version", updateStrategy = FieldStrategy.NEVER)
+    private Integer latestVersion;
+
+    /**
+     * 最新版本文件名
+     */
+    @TableField(value = "latest_filename", updateStrategy = FieldStrategy.NEVER)
+    private String latestFilename;
+
+    /**
+     * 最新版本文件路径
+     */
+    @TableField(value = "latest_url", updateStrategy = FieldStrategy.NEVER)
+    private String latestUrl;
+
+    /**
+     * 最新版本文件大小（字节）
+     */
+    @TableField(value = "latest_file_size", updateStrategy = FieldStrategy.NEVER)
+    private Long latestFileSize;
+
+    /**
+     * 最新版本文件类型
+     */
+    @TableField(value = "latest_file_type", updateStrategy = FieldStrategy.NEVER)
+    private String latestFileType;
+
+    /**
+     * 下一个版本号（仅由 MaterialRepository.incrementNextVersion 递增）
+     */
+    @TableField(value = "next_version", updateStrategy = FieldStrategy.NEVER)
+    private Integer nextVersion;
+
     /**
      * 创建时间
      */
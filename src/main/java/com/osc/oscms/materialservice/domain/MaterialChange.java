@@ -0,0 +1,55 @@
+package com.osc.oscms.materialservice.domain;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 资料变更日志实体类
+ */
+@Data
+@TableName("osc_material_change")
+public class MaterialChange {
+
+    public static final String TYPE_LISTING = "LISTING";
+    public static final String TYPE_FILE = "FILE";
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    @TableField("change_type")
+    private String changeType;
+
+    @TableField("material_id")
+    private Long materialId;
+
+    @TableField("course_id")
+    private Long courseId;
+
+    /**
+     * 受影响的章节，逗号分隔
+     */
+    @TableField("chapter_orders")
+    private String chapterOrders;
+
+    /**
+     * 受影响的班级，逗号分隔；为空表示该课程所有班级
+     */
+    @TableField("class_ids")
+    private String classIds;
+
+    /**
+     * 被删除的存储文件名
+     */
+    @TableField("file_key")
+    private String fileKey;
+
+    /**
+     * 写入该变更的服务实例
+     */
+    @TableField("node_id")
+    private String nodeId;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,68 @@
+package com.osc.oscms.materialservice.domain;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 资料分片上传会话实体类
+ */
+@Data
+@TableName("osc_material_upload")
+public class MaterialUpload {
+
+    public static final String STATUS_OPEN = "OPEN";
+    public static final String STATUS_COMMITTING = "COMMITTING";
+
+    /**
+     * 上传会话ID（UUID）
+     */
+    @TableId(type = IdType.INPUT)
+    private String id;
+
+    /**
+     * 上传新资料时的课程ID
+     */
+    @TableField("course_id")
+    private Long courseId;
+
+    /**
+     * 上传新版本时的资料ID
+     */
+    @TableField("material_id")
+    private Long materialId;
+
+    private String filename;
+
+    @TableField("total_size")
+    private Long totalSize;
+
+    @TableField("chunk_size")
+    private Integer chunkSize;
+
+    @TableField("chunk_count")
+    private Integer chunkCount;
+
+    private String status;
+
+    /**
+     * 正在写入的分片数，为 0 时才能开始提交
+     */
+    @TableField("active_writers")
+    private Integer activeWriters;
+
+    /**
+     * 已结束的分片写入次数（含失败的写入），提交时用于判断增量摘要是否经手了全部写入
+     */
+    @TableField("chunk_writes")
+    private Integer chunkWrites;
+
+    @TableField("created_by")
+    private String createdBy;
+
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    @TableField("updated_at")
+    private LocalDateTime updatedAt;
+}
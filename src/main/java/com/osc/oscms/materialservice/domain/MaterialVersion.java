@@ -22,6 +22,21 @@ public class MaterialVersion {
 
     private String url;
 
+    @TableField("file_size")
+    private Long fileSize;
+
+    @TableField("file_type")
+    private String fileType;
+
+    /**
+     * 按文件头识别的内容类型
+     */
+    @TableField("content_type")
+    private String contentType;
+
+    @TableField("content_hash")
+    private String contentHash;
+
     private String description;
 
     @TableField("uploaded_at")
@@ -0,0 +1,18 @@
+package com.osc.oscms.materialservice.domain;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+
+/**
+ * 资料可见班级关联实体类
+ */
+@Data
+@TableName("osc_material_visibility")
+public class MaterialVisibility {
+
+    @TableField("material_id")
+    private Long materialId;
+
+    @TableField("class_id")
+    private Long classId;
+}
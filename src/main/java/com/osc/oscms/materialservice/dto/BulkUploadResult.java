@@ -0,0 +1,25 @@
+package com.osc.oscms.materialservice.dto;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import lombok.Data;
+
+/**
+ * 批量上传中单个文件的结果
+ */
+@Data
+public class BulkUploadResult {
+
+    private String filename;
+
+    private boolean success;
+
+    /**
+     * 上传成功时创建的资料
+     */
+    private MaterialDto material;
+
+    /**
+     * 上传失败的原因
+     */
+    private String error;
+}
@@ -0,0 +1,16 @@
+package com.osc.oscms.materialservice.dto;
+
+import lombok.Data;
+
+/**
+ * 课程各章节的资料数
+ */
+@Data
+public class ChapterMaterialCount {
+
+    private Long courseId;
+
+    private Integer chapterOrder;
+
+    private Long materialCount;
+}
@@ -0,0 +1,35 @@
+package com.osc.oscms.materialservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 课程资料统计
+ */
+@Data
+public class CourseMaterialStats {
+
+    private Long courseId;
+
+    /**
+     * 资料总数
+     */
+    private Long materialCount;
+
+    /**
+     * 版本总数
+     */
+    private Long versionCount;
+
+    /**
+     * 所有版本文件大小之和（字节）；内容寻址存储下相同内容只占用一份磁盘空间，实际占用可能更小，
+     * 未记录文件大小的历史版本不计入
+     */
+    private Long totalBytes;
+
+    /**
+     * 各章节的资料数，按章节顺序排列
+     */
+    private List<ChapterMaterialCount> chapters;
+}
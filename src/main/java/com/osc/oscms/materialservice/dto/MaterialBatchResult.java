@@ -0,0 +1,23 @@
+package com.osc.oscms.materialservice.dto;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量查询资料结果
+ */
+@Data
+public class MaterialBatchResult {
+
+    /**
+     * 查询到的资料，按请求中的ID顺序排列（重复ID只返回一次）
+     */
+    private List<MaterialDto> materials;
+
+    /**
+     * 不存在的资料ID
+     */
+    private List<Long> missingIds;
+}
@@ -0,0 +1,50 @@
+package com.osc.oscms.materialservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 资料下载描述
+ * 一次查询得到下载所需的全部信息：文件位置、文件名、大小、类型及所属课程
+ */
+@Data
+public class MaterialDownload {
+
+    private Long materialId;
+
+    /**
+     * 资料所属课程ID，用于校验请求路径中的课程
+     */
+    private Long courseId;
+
+    private Long versionId;
+
+    private Integer version;
+
+    private String filename;
+
+    /**
+     * 存储文件名
+     */
+    private String url;
+
+    /**
+     * 文件大小（字节），历史版本可能为空
+     */
+    private Long fileSize;
+
+    private String fileType;
+
+    /**
+     * 按文件头识别的内容类型，历史版本可能为空
+     */
+    private String contentType;
+
+    /**
+     * 文件内容 SHA-256 摘要，尚未迁移到内容寻址存储的版本为空
+     */
+    private String contentHash;
+
+    private LocalDateTime uploadedAt;
+}
@@ -0,0 +1,45 @@
+package com.osc.oscms.materialservice.dto;
+
+import com.osc.oscms.common.exception.BusinessException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 课程资料分页游标
+ * 记录上一页最后一条资料的排序键，对客户端以不透明字符串传递
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MaterialListingCursor {
+
+    private Integer chapterOrder;
+
+    private LocalDateTime createdAt;
+
+    private Long id;
+
+    public String encode() {
+        String raw = chapterOrder + "," + createdAt + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MaterialListingCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(",");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(raw);
+            }
+            return new MaterialListingCursor(Integer.valueOf(parts[0]), LocalDateTime.parse(parts[1]),
+                    Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BusinessException("分页游标无效");
+        }
+    }
+}
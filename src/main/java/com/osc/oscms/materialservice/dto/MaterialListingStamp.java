@@ -0,0 +1,25 @@
+package com.osc.oscms.materialservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 课程资料列表版本标记
+ * 资料的新增、修改、删除都会递增课程的列表版本，版本不变即列表内容未变
+ */
+@Data
+public class MaterialListingStamp {
+
+    private Long courseId;
+
+    /**
+     * 列表版本，课程从未有过资料时为 0
+     */
+    private long version;
+
+    /**
+     * 列表最近变化时间，课程从未有过资料时为空
+     */
+    private LocalDateTime lastUpdatedAt;
+}
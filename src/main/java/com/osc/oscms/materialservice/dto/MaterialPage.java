@@ -0,0 +1,20 @@
+package com.osc.oscms.materialservice.dto;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 课程资料分页结果
+ */
+@Data
+public class MaterialPage {
+
+    private List<MaterialDto> items;
+
+    /**
+     * 下一页游标，已是最后一页时为空
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,55 @@
+package com.osc.oscms.materialservice.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分片上传会话信息
+ */
+@Data
+public class UploadSessionDto {
+
+    /**
+     * 上传会话ID
+     */
+    private String uploadId;
+
+    /**
+     * 上传新资料时的课程ID
+     */
+    private Long courseId;
+
+    /**
+     * 上传新版本时的资料ID
+     */
+    private Long materialId;
+
+    private String filename;
+
+    /**
+     * 文件总大小（字节）
+     */
+    private Long totalSize;
+
+    /**
+     * 分片大小（字节），最后一个分片可以更小
+     */
+    private Integer chunkSize;
+
+    /**
+     * 分片数量
+     */
+    private Integer chunkCount;
+
+    /**
+     * 已接收的分片序号，断点续传时只需上传缺失的分片
+     */
+    private List<Integer> receivedChunks;
+
+    /**
+     * 会话无活动时的过期时间
+     */
+    private LocalDateTime expiresAt;
+}
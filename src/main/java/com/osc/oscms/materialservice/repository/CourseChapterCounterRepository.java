@@ -0,0 +1,37 @@
+package com.osc.oscms.materialservice.repository;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 课程章节顺序计数器数据访问层
+ * 计数器行在事务提交前保持行锁，同一课程的并发分配依次进行
+ */
+@Mapper
+public interface CourseChapterCounterRepository {
+
+    /**
+     * 递增课程的章节计数器，递增后的值写入当前连接的 LAST_INSERT_ID()；课程尚无计数器时从 1 开始分配
+     */
+    @Insert("INSERT INTO osc_course_chapter_counter (course_id, next_chapter_order) " +
+            "VALUES (#{courseId}, LAST_INSERT_ID(2)) " +
+            "ON DUPLICATE KEY UPDATE next_chapter_order = LAST_INSERT_ID(next_chapter_order + 1)")
+    int increment(@Param("courseId") Long courseId);
+
+    /**
+     * 显式指定章节顺序时推进计数器，保证之后自动分配的章节排在其后
+     */
+    @Insert("INSERT INTO osc_course_chapter_counter (course_id, next_chapter_order) " +
+            "VALUES (#{courseId}, #{chapterOrder} + 1) " +
+            "ON DUPLICATE KEY UPDATE next_chapter_order = GREATEST(next_chapter_order, #{chapterOrder} + 1)")
+    int reserve(@Param("courseId") Long courseId, @Param("chapterOrder") Integer chapterOrder);
+
+    /**
+     * 当前连接最近一次通过 LAST_INSERT_ID(expr) 写入的值；须与递增在同一事务中调用，
+     * 事务外 MyBatis 的每条语句可能取自不同的连接
+     */
+    @Select("SELECT LAST_INSERT_ID()")
+    long lastInsertId();
+}
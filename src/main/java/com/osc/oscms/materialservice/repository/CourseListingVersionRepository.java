@@ -0,0 +1,30 @@
+package com.osc.oscms.materialservice.repository;
+
+import com.osc.oscms.materialservice.dto.MaterialListingStamp;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 课程资料列表版本数据访问层
+ * 版本行在事务提交前保持行锁，同一课程的资料变更依次提交，版本不会被并发事务覆盖
+ */
+@Mapper
+public interface CourseListingVersionRepository {
+
+    /**
+     * 递增课程的列表版本；课程尚无版本记录时从 1 开始
+     */
+    @Insert("INSERT INTO osc_course_listing_version (course_id, version, updated_at) " +
+            "VALUES (#{courseId}, 1, CURRENT_TIMESTAMP(3)) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1, updated_at = CURRENT_TIMESTAMP(3)")
+    int increment(@Param("courseId") Long courseId);
+
+    /**
+     * 按主键读取课程的列表版本，课程从未有过资料时返回 null
+     */
+    @Select("SELECT course_id, version, updated_at AS last_updated_at " +
+            "FROM osc_course_listing_version WHERE course_id = #{courseId}")
+    MaterialListingStamp findStamp(@Param("courseId") Long courseId);
+}
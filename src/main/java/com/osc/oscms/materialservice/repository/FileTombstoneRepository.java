@@ -0,0 +1,39 @@
+package com.osc.oscms.materialservice.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.osc.oscms.materialservice.domain.FileTombstone;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 存储文件删除墓碑数据访问层
+ */
+@Mapper
+public interface FileTombstoneRepository extends BaseMapper<FileTombstone> {
+
+    /**
+     * 批量记录待删除的文件
+     */
+    @Insert("<script>INSERT INTO osc_file_tombstone (file_key) VALUES " +
+            "<foreach collection='fileKeys' item='fileKey' separator=','>(#{fileKey})</foreach>" +
+            "</script>")
+    int insertBatch(@Param("fileKeys") Collection<String> fileKeys);
+
+    /**
+     * 按ID顺序查询指定ID之后的墓碑
+     */
+    @Select("SELECT * FROM osc_file_tombstone WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<FileTombstone> findAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 删除文件的所有墓碑
+     */
+    @Delete("DELETE FROM osc_file_tombstone WHERE file_key = #{fileKey}")
+    int deleteByFileKey(@Param("fileKey") String fileKey);
+}
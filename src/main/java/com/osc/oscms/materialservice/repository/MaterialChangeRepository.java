@@ -0,0 +1,46 @@
+package com.osc.oscms.materialservice.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.osc.oscms.materialservice.domain.MaterialChange;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 资料变更日志数据访问层
+ */
+@Mapper
+public interface MaterialChangeRepository extends BaseMapper<MaterialChange> {
+
+    /**
+     * 当前最大变更ID，没有变更时返回 0
+     */
+    @Select("SELECT COALESCE(MAX(id), 0) FROM osc_material_change")
+    long findMaxId();
+
+    /**
+     * 按ID顺序查询指定ID之后的变更
+     */
+    @Select("SELECT * FROM osc_material_change WHERE id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<MaterialChange> findAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 按ID查询变更（用于补读提交较晚的变更）
+     */
+    @Select("<script>" +
+            "SELECT * FROM osc_material_change WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<MaterialChange> findByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 删除超过保留时间的变更
+     */
+    @Delete("DELETE FROM osc_material_change WHERE created_at < DATE_SUB(NOW(), INTERVAL #{seconds} SECOND) " +
+            "LIMIT #{limit}")
+    int deleteOlderThan(@Param("seconds") long seconds, @Param("limit") int limit);
+}
@@ -2,10 +2,18 @@ package com.osc.oscms.materialservice.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.osc.oscms.materialservice.domain.Material;
+import com.osc.oscms.materialservice.domain.MaterialVersion;
+import com.osc.oscms.materialservice.dto.ChapterMaterialCount;
+import com.osc.oscms.materialservice.dto.MaterialListingCursor;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -20,6 +28,27 @@ public interface MaterialRepository extends BaseMapper<Material> {
     @Select("SELECT * FROM osc_material WHERE course_id = #{courseId} ORDER BY chapter_order ASC, created_at DESC")
     List<Material> findByCourseId(@Param("courseId") Long courseId);
     
+    /**
+     * 按 (chapter_order, created_at, id) 键集分页查询课程资料，after 为空时从第一条开始
+     */
+    @Select("<script>" +
+            "SELECT * FROM osc_material WHERE course_id = #{courseId} " +
+            "<if test='after != null'>" +
+            "AND (chapter_order &gt; #{after.chapterOrder} OR (chapter_order = #{after.chapterOrder} " +
+            "AND (created_at &lt; #{after.createdAt} OR (created_at = #{after.createdAt} AND id &lt; #{after.id})))) " +
+            "</if>" +
+            "ORDER BY chapter_order ASC, created_at DESC, id DESC LIMIT #{limit}" +
+            "</script>")
+    List<Material> findPageByCourseId(@Param("courseId") Long courseId, @Param("after") MaterialListingCursor after,
+            @Param("limit") int limit);
+
+    /**
+     * 流式读取课程资料；fetchSize 为 Integer.MIN_VALUE 时 MySQL 驱动逐行返回结果，不在内存中缓存整个结果集
+     */
+    @Options(fetchSize = Integer.MIN_VALUE)
+    @Select("SELECT * FROM osc_material WHERE course_id = #{courseId} ORDER BY chapter_order ASC, created_at DESC, id DESC")
+    Cursor<Material> streamByCourseId(@Param("courseId") Long courseId);
+
     /**
      * 根据课程ID和章节顺序查询资料
      */
@@ -28,15 +57,104 @@ public interface MaterialRepository extends BaseMapper<Material> {
     
     /**
      * 查询某个课程某个班级可见的资料
+     * visible_classes 为 NULL 表示对所有班级可见，否则通过 osc_material_visibility 主键判断
      */
-    @Select("SELECT * FROM osc_material WHERE course_id = #{courseId} " +
-            "AND (visible_classes IS NULL OR JSON_CONTAINS(visible_classes, CAST(#{classId} AS JSON))) " +
-            "ORDER BY chapter_order ASC, created_at DESC")
+    @Select("SELECT m.* FROM osc_material m " +
+            "LEFT JOIN osc_material_visibility mv ON mv.material_id = m.id AND mv.class_id = #{classId} " +
+            "WHERE m.course_id = #{courseId} " +
+            "AND (m.visible_classes IS NULL OR mv.material_id IS NOT NULL) " +
+            "ORDER BY m.chapter_order ASC, m.created_at DESC")
     List<Material> findVisibleMaterialsByCourseAndClass(@Param("courseId") Long courseId, @Param("classId") Long classId);
     
+    /**
+     * 统计课程的资料数
+     */
+    @Select("SELECT COUNT(*) FROM osc_material WHERE course_id = #{courseId}")
+    long countByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * 按课程和章节统计资料数
+     */
+    @Select("<script>" +
+            "SELECT course_id, chapter_order, COUNT(*) AS material_count FROM osc_material WHERE course_id IN " +
+            "<foreach collection='courseIds' item='courseId' open='(' separator=',' close=')'>#{courseId}</foreach>" +
+            " GROUP BY course_id, chapter_order ORDER BY course_id, chapter_order" +
+            "</script>")
+    List<ChapterMaterialCount> countByCourseAndChapter(@Param("courseIds") Collection<Long> courseIds);
+
     /**
      * 获取课程的最大章节顺序号
      */
     @Select("SELECT COALESCE(MAX(chapter_order), 0) FROM osc_material WHERE course_id = #{courseId}")
     Integer getMaxChapterOrderByCourseId(@Param("courseId") Long courseId);
+
+    /**
+     * 多行插入资料，生成的主键回填到各实体
+     */
+    @Insert("<script>" +
+            "INSERT INTO osc_material (course_id, chapter_order, visible_classes, next_version, created_at, updated_at) " +
+            "VALUES " +
+            "<foreach collection='materials' item='m' separator=','>" +
+            "(#{m.courseId}, #{m.chapterOrder}, #{m.visibleClasses}, #{m.nextVersion}, #{m.createdAt}, #{m.updatedAt})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "materials.id", keyColumn = "id")
+    int insertBatch(@Param("materials") List<Material> materials);
+
+    /**
+     * 将资料的最新版本冗余字段批量指向各自的第一个版本（批量新建资料时使用）
+     */
+    @Update("<script>" +
+            "UPDATE osc_material m JOIN osc_material_version v ON v.material_id = m.id AND v.version = 1 " +
+            "SET m.latest_version_id = v.id, m.latest_version = v.version, m.latest_filename = v.filename, " +
+            "m.latest_url = v.url, m.latest_file_size = v.file_size, m.latest_file_type = v.file_type " +
+            "WHERE m.id IN " +
+            "<foreach collection='materialIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int initLatestVersions(@Param("materialIds") Collection<Long> materialIds);
+
+    /**
+     * 递增资料的版本计数器，递增后的值写入当前连接的 LAST_INSERT_ID()；
+     * 资料行在事务提交前保持行锁，同一资料的并发上传依次分配版本号
+     */
+    @Update("UPDATE osc_material SET next_version = LAST_INSERT_ID(next_version + 1) WHERE id = #{materialId}")
+    int incrementNextVersion(@Param("materialId") Long materialId);
+
+    /**
+     * 查询资料并锁定资料行直到事务结束；与 incrementNextVersion 取同一行锁，删除版本与上传新版本依次执行
+     */
+    @Select("SELECT * FROM osc_material WHERE id = #{materialId} FOR UPDATE")
+    Material selectByIdForUpdate(@Param("materialId") Long materialId);
+
+    /**
+     * 当前连接最近一次通过 LAST_INSERT_ID(expr) 写入的值；须与递增在同一事务中调用，
+     * 事务外 MyBatis 的每条语句可能取自不同的连接
+     */
+    @Select("SELECT LAST_INSERT_ID()")
+    long lastInsertId();
+
+    /**
+     * 更新资料的最新版本冗余字段
+     */
+    @Update("UPDATE osc_material SET latest_version_id = #{v.id}, latest_version = #{v.version}, " +
+            "latest_filename = #{v.filename}, latest_url = #{v.url}, " +
+            "latest_file_size = #{v.fileSize}, latest_file_type = #{v.fileType} " +
+            "WHERE id = #{v.materialId}")
+    int updateLatestVersion(@Param("v") MaterialVersion version);
+
+    /**
+     * 查询最新版本指向指定存储文件的资料（存储迁移时确定需要失效的列表）
+     */
+    @Select("SELECT m.* FROM osc_material m JOIN osc_material_version v " +
+            "ON m.id = v.material_id AND m.latest_version_id = v.id WHERE v.url = #{url}")
+    List<Material> findByLatestUrl(@Param("url") String url);
+
+    /**
+     * 存储文件迁移后，将最新版本指向该文件的资料同步为新的文件路径和大小
+     */
+    @Update("UPDATE osc_material m " +
+            "SET latest_url = (SELECT v.url FROM osc_material_version v WHERE v.id = m.latest_version_id), " +
+            "latest_file_size = (SELECT v.file_size FROM osc_material_version v WHERE v.id = m.latest_version_id) " +
+            "WHERE m.latest_version_id IN (SELECT id FROM osc_material_version WHERE url = #{url})")
+    int syncLatestStorage(@Param("url") String url);
 }
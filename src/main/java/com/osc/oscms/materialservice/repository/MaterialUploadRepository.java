@@ -0,0 +1,81 @@
+package com.osc.oscms.materialservice.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.osc.oscms.materialservice.domain.MaterialUpload;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 资料分片上传会话数据访问层
+ */
+@Mapper
+public interface MaterialUploadRepository extends BaseMapper<MaterialUpload> {
+
+    /**
+     * 记录已接收的分片（重复上传同一分片时忽略）
+     */
+    @Insert("INSERT IGNORE INTO osc_material_upload_chunk (upload_id, chunk_index) VALUES (#{uploadId}, #{chunkIndex})")
+    int insertChunk(@Param("uploadId") String uploadId, @Param("chunkIndex") Integer chunkIndex);
+
+    /**
+     * 查询已接收的分片序号
+     */
+    @Select("SELECT chunk_index FROM osc_material_upload_chunk WHERE upload_id = #{uploadId} ORDER BY chunk_index")
+    List<Integer> findChunkIndexes(@Param("uploadId") String uploadId);
+
+    /**
+     * 统计已接收的分片数
+     */
+    @Select("SELECT COUNT(*) FROM osc_material_upload_chunk WHERE upload_id = #{uploadId}")
+    int countChunks(@Param("uploadId") String uploadId);
+
+    /**
+     * 登记一次分片写入，同时刷新会话活跃时间；返回 0 表示会话不存在或已开始提交
+     */
+    @Update("UPDATE osc_material_upload SET active_writers = active_writers + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = #{uploadId} AND status = 'OPEN'")
+    int beginWrite(@Param("uploadId") String uploadId);
+
+    /**
+     * 结束一次分片写入（无论成功与否），同时刷新会话活跃时间
+     */
+    @Update("UPDATE osc_material_upload SET active_writers = active_writers - 1, chunk_writes = chunk_writes + 1, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE id = #{uploadId}")
+    int endWrite(@Param("uploadId") String uploadId);
+
+    /**
+     * 没有进行中的分片写入时将会话切换为提交中，返回 0 表示正在提交或仍有分片在写入
+     */
+    @Update("UPDATE osc_material_upload SET status = 'COMMITTING' " +
+            "WHERE id = #{uploadId} AND status = 'OPEN' AND active_writers = 0")
+    int beginCommit(@Param("uploadId") String uploadId);
+
+    /**
+     * 将会话从 fromStatus 切换为 toStatus，返回 0 表示状态已被其他请求修改
+     */
+    @Update("UPDATE osc_material_upload SET status = #{toStatus} WHERE id = #{uploadId} AND status = #{fromStatus}")
+    int updateStatus(@Param("uploadId") String uploadId, @Param("fromStatus") String fromStatus,
+            @Param("toStatus") String toStatus);
+
+    /**
+     * 查询超过指定秒数无活动的会话；正在提交或仍有分片在写入的会话不算无活动
+     */
+    @Select("SELECT * FROM osc_material_upload WHERE status = 'OPEN' AND active_writers = 0 " +
+            "AND updated_at < TIMESTAMPADD(SECOND, -#{seconds}, CURRENT_TIMESTAMP) " +
+            "ORDER BY updated_at LIMIT #{limit}")
+    List<MaterialUpload> findInactiveFor(@Param("seconds") long seconds, @Param("limit") int limit);
+
+    /**
+     * 会话仍然无活动时删除（已接收分片的记录级联删除），返回 0 表示查询之后会话有了新的写入或开始提交
+     */
+    @Delete("DELETE FROM osc_material_upload WHERE id = #{uploadId} AND status = 'OPEN' AND active_writers = 0 " +
+            "AND updated_at < TIMESTAMPADD(SECOND, -#{seconds}, CURRENT_TIMESTAMP)")
+    int deleteIfInactiveFor(@Param("uploadId") String uploadId, @Param("seconds") long seconds);
+
+}
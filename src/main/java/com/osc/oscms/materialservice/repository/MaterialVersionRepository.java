@@ -2,10 +2,16 @@ package com.osc.oscms.materialservice.repository;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.osc.oscms.materialservice.domain.MaterialVersion;
+import com.osc.oscms.materialservice.dto.CourseMaterialStats;
+import com.osc.oscms.materialservice.dto.MaterialDownload;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +27,20 @@ public interface MaterialVersionRepository extends BaseMapper<MaterialVersion> {
     @Select("SELECT * FROM osc_material_version WHERE material_id = #{materialId} ORDER BY version DESC")
     List<MaterialVersion> findByMaterialId(@Param("materialId") Long materialId);
     
+    /**
+     * 多行插入版本，生成的主键回填到各实体
+     */
+    @Insert("<script>" +
+            "INSERT INTO osc_material_version (material_id, version, filename, url, file_size, file_type, " +
+            "content_type, content_hash, description, uploaded_at) VALUES " +
+            "<foreach collection='versions' item='v' separator=','>" +
+            "(#{v.materialId}, #{v.version}, #{v.filename}, #{v.url}, #{v.fileSize}, #{v.fileType}, " +
+            "#{v.contentType}, #{v.contentHash}, #{v.description}, #{v.uploadedAt})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "versions.id", keyColumn = "id")
+    int insertBatch(@Param("versions") List<MaterialVersion> versions);
+
     /**
      * 根据资料ID获取最新版本
      */
@@ -33,12 +53,74 @@ public interface MaterialVersionRepository extends BaseMapper<MaterialVersion> {
     @Select("SELECT * FROM osc_material_version WHERE material_id = #{materialId} AND version = #{version}")
     Optional<MaterialVersion> findByMaterialIdAndVersion(@Param("materialId") Long materialId, @Param("version") Integer version);
     
+    /**
+     * 查询下载所需的版本与资料信息；未指定版本时取资料主表上的最新版本指针
+     */
+    @Select("<script>" +
+            "SELECT m.id AS material_id, m.course_id, v.id AS version_id, v.version, v.filename, v.url, " +
+            "v.file_size, v.file_type, v.content_type, v.content_hash, v.uploaded_at " +
+            "FROM osc_material m JOIN osc_material_version v ON v.material_id = m.id " +
+            "<choose>" +
+            "<when test='version != null'>AND v.version = #{version}</when>" +
+            "<otherwise>AND v.id = m.latest_version_id</otherwise>" +
+            "</choose>" +
+            " WHERE m.id = #{materialId}" +
+            "</script>")
+    Optional<MaterialDownload> findDownload(@Param("materialId") Long materialId, @Param("version") Integer version);
+
+    /**
+     * 按课程统计版本数和文件大小之和（只填充 courseId、versionCount、totalBytes）
+     */
+    @Select("<script>" +
+            "SELECT m.course_id, COUNT(*) AS version_count, COALESCE(SUM(v.file_size), 0) AS total_bytes " +
+            "FROM osc_material m JOIN osc_material_version v ON v.material_id = m.id WHERE m.course_id IN " +
+            "<foreach collection='courseIds' item='courseId' open='(' separator=',' close=')'>#{courseId}</foreach>" +
+            " GROUP BY m.course_id" +
+            "</script>")
+    List<CourseMaterialStats> sumVersionsByCourse(@Param("courseIds") Collection<Long> courseIds);
+
     /**
      * 获取资料的最大版本号
      */
     @Select("SELECT COALESCE(MAX(version), 0) FROM osc_material_version WHERE material_id = #{materialId}")
     Integer getMaxVersionByMaterialId(@Param("materialId") Long materialId);
     
+    /**
+     * 统计资料的版本数
+     */
+    @Select("SELECT COUNT(*) FROM osc_material_version WHERE material_id = #{materialId}")
+    long countByMaterialId(@Param("materialId") Long materialId);
+
+    /**
+     * 统计引用同一存储文件的版本数（文件引用计数）
+     */
+    @Select("SELECT COUNT(*) FROM osc_material_version WHERE url = #{url}")
+    long countByUrl(@Param("url") String url);
+
+    /**
+     * 查询仍被版本引用的存储文件（用于孤立文件清理）
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT url FROM osc_material_version WHERE url IN " +
+            "<foreach collection='urls' item='url' open='(' separator=',' close=')'>#{url}</foreach>" +
+            "</script>")
+    List<String> findReferencedUrls(@Param("urls") Collection<String> urls);
+
+    /**
+     * 按ID顺序分批查询尚未计算内容摘要的版本
+     */
+    @Select("SELECT * FROM osc_material_version WHERE content_hash IS NULL AND id > #{afterId} ORDER BY id LIMIT #{limit}")
+    List<MaterialVersion> findWithoutContentHash(@Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * 将引用旧存储文件的版本改为引用新存储文件，并补齐尚未记录的内容类型
+     */
+    @Update("UPDATE osc_material_version SET url = #{newUrl}, content_hash = #{contentHash}, file_size = #{fileSize}, " +
+            "content_type = COALESCE(content_type, #{contentType}) WHERE url = #{oldUrl}")
+    int updateStorage(@Param("oldUrl") String oldUrl, @Param("newUrl") String newUrl,
+            @Param("contentHash") String contentHash, @Param("fileSize") Long fileSize,
+            @Param("contentType") String contentType);
+
     /**
      * 删除资料的所有版本
      */
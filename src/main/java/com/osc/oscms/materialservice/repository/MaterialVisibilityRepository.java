@@ -0,0 +1,42 @@
+package com.osc.oscms.materialservice.repository;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.osc.oscms.materialservice.domain.MaterialVisibility;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+/**
+ * 资料可见班级数据访问层
+ */
+@Mapper
+public interface MaterialVisibilityRepository extends BaseMapper<MaterialVisibility> {
+
+    /**
+     * 批量插入资料的可见班级
+     */
+    @Insert("<script>INSERT INTO osc_material_visibility (material_id, class_id) VALUES " +
+            "<foreach collection='classIds' item='classId' separator=','>(#{materialId}, #{classId})</foreach>" +
+            "</script>")
+    int insertBatch(@Param("materialId") Long materialId, @Param("classIds") Collection<Long> classIds);
+
+    /**
+     * 批量插入多个资料的相同可见班级
+     */
+    @Insert("<script>INSERT INTO osc_material_visibility (material_id, class_id) VALUES " +
+            "<foreach collection='materialIds' item='materialId' separator=','>" +
+            "<foreach collection='classIds' item='classId' separator=','>(#{materialId}, #{classId})</foreach>" +
+            "</foreach>" +
+            "</script>")
+    int insertBatchForMaterials(@Param("materialIds") Collection<Long> materialIds,
+            @Param("classIds") Collection<Long> classIds);
+
+    /**
+     * 删除资料的所有可见班级
+     */
+    @Delete("DELETE FROM osc_material_visibility WHERE material_id = #{materialId}")
+    int deleteByMaterialId(@Param("materialId") Long materialId);
+}
@@ -1,7 +1,7 @@
 package com.osc.oscms.materialservice.security;
 
-import com.osc.oscms.common.util.JwtUtil;
 import com.osc.oscms.common.util.JwtTokenHolder;
+import com.osc.oscms.materialservice.security.JwtClaimsCache.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +9,6 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -17,50 +16,56 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * JWT认证过滤器
+ * 令牌验证结果由 JwtClaimsCache 缓存，同一令牌的重复请求不再验签
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final JwtClaimsCache jwtClaimsCache;
+
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
+        try {
+            authenticate(request);
+            filterChain.doFilter(request, response);
+        } finally {
+            // 平台线程会被后续请求复用，请求结束时清除令牌，避免下一个请求的 Feign 调用带上上一个用户的令牌
+            JwtTokenHolder.setCurrentToken(null);
+        }
+    }
+
+    private void authenticate(HttpServletRequest request) {
         try {
             String jwt = getJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                String userId = jwtUtil.getUserIdFromToken(jwt);
-                List<String> roles = jwtUtil.getRolesFromToken(jwt);
+                VerifiedToken token = jwtClaimsCache.verify(jwt);
 
-                if (userId != null && roles != null && !roles.isEmpty()) {
+                if (token != null) {
                     // 将JWT token存储到ThreadLocal中，供Feign调用时使用
                     JwtTokenHolder.setCurrentToken(jwt);
-                    // 创建认证对象
-                    List<SimpleGrantedAuthority> authorities = roles.stream()
-                            .map(SimpleGrantedAuthority::new)
-                            .toList();
-                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userId,
-                            null, authorities);
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    // 创建认证对象，令牌作为凭证随 SecurityContext 传递到异步任务
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            token.userId(), jwt, token.authorities());
+                    authentication.setDetails(authenticationDetailsSource.buildDetails(request));
 
                     // 设置到Security上下文
                     SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                    log.debug("Set authentication for user: {}, roles: {}", userId, roles);
+                    log.debug("Set authentication for user: {}, roles: {}", token.userId(), token.roles());
                 }
             }
         } catch (Exception e) {
             log.error("Cannot set user authentication", e);
         }
-
-        filterChain.doFilter(request, response);
     }
 
     private String getJwtFromRequest(HttpServletRequest request) {
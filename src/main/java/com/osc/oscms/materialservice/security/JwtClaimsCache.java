@@ -0,0 +1,112 @@
+package com.osc.oscms.materialservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.osc.oscms.materialservice.config.JwtClaimsCacheProperties;
+import com.osc.oscms.materialservice.security.JwtClaimsParser.ParsedToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证令牌缓存
+ * 以令牌的 SHA-256 摘要为 key 缓存验签后的用户ID与角色，条目在令牌 exp 或 maxTtl（取较早者）到期；
+ * 同一令牌的后续请求不再重复验签和解析，同一令牌的并发未命中只验证一次。
+ * 验证失败的令牌不缓存，避免无效令牌占满缓存
+ */
+@Component
+public class JwtClaimsCache {
+
+    private final JwtClaimsParser jwtClaimsParser;
+    private final boolean enabled;
+    private final long maxTtlMillis;
+    private final Cache<String, VerifiedToken> cache;
+
+    public JwtClaimsCache(JwtClaimsParser jwtClaimsParser, JwtClaimsCacheProperties properties,
+            MeterRegistry meterRegistry) {
+        this.jwtClaimsParser = jwtClaimsParser;
+        this.enabled = properties.isEnabled();
+        this.maxTtlMillis = properties.getMaxTtl().toMillis();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return ttlOf(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime,
+                            long currentDuration) {
+                        return ttlOf(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtClaims");
+    }
+
+    /**
+     * 验证令牌并返回其中的用户信息；令牌无效或缺少用户ID、角色时返回 null
+     */
+    public VerifiedToken verify(String jwt) {
+        if (!enabled) {
+            return load(jwt);
+        }
+        return cache.get(digest(jwt), key -> load(jwt));
+    }
+
+    private VerifiedToken load(String jwt) {
+        ParsedToken parsed = jwtClaimsParser.parse(jwt);
+        if (parsed == null || parsed.userId() == null || parsed.roles().isEmpty()) {
+            return null;
+        }
+        List<SimpleGrantedAuthority> authorities = parsed.roles().stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+        return new VerifiedToken(parsed.userId(), parsed.roles(), authorities, parsed.expiresAtMillis());
+    }
+
+    /**
+     * 条目有效期（纳秒）：先以毫秒限制在 [0, maxTtl] 内再换算，exp 很远时不会溢出成负数
+     */
+    private long ttlOf(VerifiedToken token) {
+        long ttlMillis = token.expiresAtMillis() < 0
+                ? maxTtlMillis
+                : Math.max(0, Math.min(token.expiresAtMillis() - System.currentTimeMillis(), maxTtlMillis));
+        return TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    private static String digest(String jwt) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 已验证的令牌
+     *
+     * @param expiresAtMillis 令牌过期时间（毫秒），没有 exp 时为 -1
+     */
+    public record VerifiedToken(String userId, List<String> roles, List<SimpleGrantedAuthority> authorities,
+            long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,57 @@
+package com.osc.oscms.materialservice.security;
+
+import com.osc.oscms.materialservice.config.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 令牌验签与声明读取
+ * 每个令牌只验签一次，用户ID（sub）、角色（roles）和过期时间（exp）取自同一份声明；
+ * 签名无效、已过期或格式错误的令牌返回 null
+ */
+@Slf4j
+@Component
+public class JwtClaimsParser {
+
+    static final String ROLES_CLAIM = "roles";
+
+    private final JwtParser parser;
+
+    public JwtClaimsParser(JwtProperties properties) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(properties.getSecret().getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    public ParsedToken parse(String jwt) {
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(jwt).getPayload();
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
+        List<String> roles = claims.get(ROLES_CLAIM) instanceof List<?> values
+                ? values.stream().map(String::valueOf).toList()
+                : List.of();
+        Date expiration = claims.getExpiration();
+        return new ParsedToken(claims.getSubject(), roles, expiration == null ? -1 : expiration.getTime());
+    }
+
+    /**
+     * 验签后的令牌声明
+     *
+     * @param expiresAtMillis 令牌过期时间（毫秒），没有 exp 时为 -1
+     */
+    public record ParsedToken(String userId, List<String> roles, long expiresAtMillis) {
+    }
+}
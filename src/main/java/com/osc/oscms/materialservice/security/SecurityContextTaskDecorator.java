@@ -0,0 +1,38 @@
+package com.osc.oscms.materialservice.security;
+
+import com.osc.oscms.common.util.JwtTokenHolder;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * 异步任务上下文传递
+ * 将提交线程的 SecurityContext 和 JWT token 带到执行线程，保证后台 Feign 调用仍能携带认证信息。
+ * 传递的是认证信息的副本；任务结束后恢复执行线程原有的上下文，
+ * 任务由提交线程自行执行（线程池饱和）或运行在虚拟线程上时同样正确
+ */
+public class SecurityContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+        String token = JwtTokenHolder.getCurrentToken();
+        return () -> {
+            SecurityContext previousContext = SecurityContextHolder.getContext();
+            String previousToken = JwtTokenHolder.getCurrentToken();
+            SecurityContextHolder.setContext(context);
+            JwtTokenHolder.setCurrentToken(token);
+            try {
+                runnable.run();
+            } finally {
+                if (previousContext.getAuthentication() != null) {
+                    SecurityContextHolder.setContext(previousContext);
+                } else {
+                    SecurityContextHolder.clearContext();
+                }
+                JwtTokenHolder.setCurrentToken(previousToken);
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.osc.oscms.materialservice.service;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.materialservice.dto.UploadSessionDto;
+
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * 资料分片上传服务接口
+ */
+public interface ChunkedUploadService {
+
+    /**
+     * 创建上传会话；courseId 与 materialId 二选一，分别对应上传新资料和上传新版本
+     */
+    UploadSessionDto createSession(Long courseId, Long materialId, String filename, long totalSize, String userId);
+
+    /**
+     * 获取上传会话及已接收的分片
+     */
+    UploadSessionDto getSession(String uploadId, String userId);
+
+    /**
+     * 写入一个分片，可重复上传
+     */
+    void writeChunk(String uploadId, int chunkIndex, long contentLength, InputStream content, String userId);
+
+    /**
+     * 提交上传，创建资料或资料新版本
+     */
+    MaterialDto commit(String uploadId, Integer chapterOrder, List<String> visibleClassIds, String description,
+            String userId);
+
+    /**
+     * 放弃上传
+     */
+    void abort(String uploadId, String userId);
+}
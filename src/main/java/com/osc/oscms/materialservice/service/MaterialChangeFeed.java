@@ -0,0 +1,217 @@
+package com.osc.oscms.materialservice.service;
+
+import com.osc.oscms.materialservice.config.MaterialChangeFeedProperties;
+import com.osc.oscms.materialservice.domain.MaterialChange;
+import com.osc.oscms.materialservice.repository.CourseListingVersionRepository;
+import com.osc.oscms.materialservice.repository.MaterialChangeRepository;
+import com.osc.oscms.materialservice.storage.HotFileCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 资料变更日志
+ * 写操作在同一事务中递增课程的列表版本并向 osc_material_change 追加变更，本实例在提交后直接失效缓存；
+ * 其他实例按自增ID轮询变更日志失效各自的列表缓存和热点文件缓存，缓存延迟不超过轮询间隔。
+ * 自增ID按分配顺序而非提交顺序递增，轮询时记录ID空洞并在超时前补读，避免漏掉提交较晚的变更
+ */
+@Slf4j
+@Component
+public class MaterialChangeFeed {
+
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * 单次记录的ID空洞上限，超过时视为自增步长调整或大批回滚
+     */
+    private static final int MAX_GAP = 1_000;
+
+    private static final int MAX_CLASS_IDS_LENGTH = 2048;
+
+    private final MaterialChangeRepository materialChangeRepository;
+    private final CourseListingVersionRepository courseListingVersionRepository;
+    private final MaterialListingCache materialListingCache;
+    private final HotFileCache hotFileCache;
+    private final boolean enabled;
+    private final long gapTimeoutNanos;
+    private final long retentionSeconds;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 已处理的最大变更ID，首次轮询前为 -1
+     */
+    private long cursor = -1;
+
+    /**
+     * 尚未读到的变更ID及补读截止时间
+     */
+    private final Map<Long, Long> pendingGaps = new HashMap<>();
+
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    public MaterialChangeFeed(MaterialChangeRepository materialChangeRepository,
+            CourseListingVersionRepository courseListingVersionRepository, MaterialListingCache materialListingCache,
+            HotFileCache hotFileCache, MaterialChangeFeedProperties properties) {
+        this.materialChangeRepository = materialChangeRepository;
+        this.courseListingVersionRepository = courseListingVersionRepository;
+        this.materialListingCache = materialListingCache;
+        this.hotFileCache = hotFileCache;
+        this.enabled = properties.isEnabled();
+        this.gapTimeoutNanos = properties.getGapTimeout().toNanos();
+        this.retentionSeconds = properties.getRetention().toSeconds();
+    }
+
+    /**
+     * 记录资料列表变化：递增课程的列表版本（不依赖变更日志是否启用），并在事务提交后失效本实例的列表缓存。
+     * 资料的新增、修改、删除都经过这里，列表版本不变即列表内容未变
+     *
+     * @param classIds 受影响的班级，为 null 表示该课程所有班级
+     */
+    public void recordListingChange(Long materialId, Long courseId, Set<Integer> chapterOrders, Set<Long> classIds) {
+        courseListingVersionRepository.increment(courseId);
+        if (enabled) {
+            MaterialChange change = newChange(MaterialChange.TYPE_LISTING);
+            change.setMaterialId(materialId);
+            change.setCourseId(courseId);
+            change.setChapterOrders(join(chapterOrders));
+            String joinedClassIds = classIds != null ? join(classIds) : null;
+            // 班级过多超出列宽时按所有班级处理
+            change.setClassIds(joinedClassIds != null && joinedClassIds.length() <= MAX_CLASS_IDS_LENGTH
+                    ? joinedClassIds : null);
+            materialChangeRepository.insert(change);
+        }
+        materialListingCache.evictAfterCommit(courseId, chapterOrders, classIds);
+    }
+
+    /**
+     * 记录存储文件删除（本实例的热点文件缓存已由存储层失效）
+     */
+    public void recordFileDeleted(String fileKey) {
+        if (enabled) {
+            MaterialChange change = newChange(MaterialChange.TYPE_FILE);
+            change.setFileKey(fileKey);
+            materialChangeRepository.insert(change);
+        }
+    }
+
+    /**
+     * 轮询其他实例写入的变更
+     */
+    @Scheduled(fixedDelayString = "${material.change-feed.poll-interval:PT2S}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        // 使用显式锁而非 synchronized，虚拟线程执行时等待数据库不会占住载体线程
+        pollLock.lock();
+        try {
+            pollChanges();
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private void pollChanges() {
+        if (cursor < 0) {
+            // 启动后首次轮询：此前的变更都已反映在数据库中，清空期间填充的列表即可
+            cursor = materialChangeRepository.findMaxId();
+            materialListingCache.invalidateAll();
+            return;
+        }
+
+        if (!pendingGaps.isEmpty()) {
+            long now = System.nanoTime();
+            pendingGaps.values().removeIf(deadline -> deadline - now < 0);
+            if (!pendingGaps.isEmpty()) {
+                for (MaterialChange change : materialChangeRepository.findByIds(pendingGaps.keySet())) {
+                    pendingGaps.remove(change.getId());
+                    apply(change);
+                }
+            }
+        }
+
+        List<MaterialChange> batch;
+        do {
+            batch = materialChangeRepository.findAfter(cursor, BATCH_SIZE);
+            for (MaterialChange change : batch) {
+                long gap = change.getId() - cursor - 1;
+                if (gap > 0 && gap <= MAX_GAP) {
+                    long deadline = System.nanoTime() + gapTimeoutNanos;
+                    for (long id = cursor + 1; id < change.getId(); id++) {
+                        pendingGaps.put(id, deadline);
+                    }
+                }
+                cursor = change.getId();
+                apply(change);
+            }
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    /**
+     * 清理超过保留时间的变更日志
+     */
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = materialChangeRepository.deleteOlderThan(retentionSeconds, BATCH_SIZE);
+            purged += deleted;
+        } while (deleted == BATCH_SIZE);
+        if (purged > 0) {
+            log.info("Purged {} material change log entries", purged);
+        }
+    }
+
+    private void apply(MaterialChange change) {
+        if (nodeId.equals(change.getNodeId())) {
+            return;
+        }
+        if (MaterialChange.TYPE_FILE.equals(change.getChangeType())) {
+            hotFileCache.invalidate(change.getFileKey());
+            return;
+        }
+        Set<Integer> chapterOrders = split(change.getChapterOrders()).stream()
+                .map(Integer::valueOf)
+                .collect(Collectors.toSet());
+        Set<Long> classIds = change.getClassIds() != null
+                ? split(change.getClassIds()).stream().map(Long::valueOf).collect(Collectors.toSet())
+                : null;
+        materialListingCache.evict(change.getCourseId(), chapterOrders, classIds);
+    }
+
+    private MaterialChange newChange(String type) {
+        MaterialChange change = new MaterialChange();
+        change.setChangeType(type);
+        change.setNodeId(nodeId);
+        return change;
+    }
+
+    private static String join(Set<?> values) {
+        return values.stream()
+                .filter(value -> value != null)
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
+    private static List<String> split(String value) {
+        if (!StringUtils.hasText(value)) {
+            return List.of();
+        }
+        return Arrays.asList(value.split(","));
+    }
+}
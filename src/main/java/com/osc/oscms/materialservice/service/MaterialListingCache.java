@@ -0,0 +1,186 @@
+package com.osc.oscms.materialservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.materialservice.config.MaterialListingCacheProperties;
+import com.osc.oscms.materialservice.dto.MaterialListingStamp;
+import com.osc.oscms.materialservice.repository.CourseListingVersionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 资料列表缓存
+ * 按课程、章节、（课程，班级）缓存构建好的资料列表。同一列表的并发重建只执行一次查询；
+ * 写操作在事务提交后精确失效受影响的列表，重建中的列表失效时会等待重建完成再移除，
+ * 不会留下提交前读到的旧数据。
+ * 失效课程所有班级的列表时无法逐个等待重建中的键，改为递增该课程的班级列表代数：
+ * 班级列表的键包含代数，失效前开始的重建完成后写入旧代数的键，之后不会再被读取；失效全部列表同理。
+ * 课程的列表版本（列表接口的 ETag）缓存在列表旁边，与课程列表一同失效，条件请求命中时不再查询数据库；
+ * 版本在列表之后失效，重新读到的新版本不会对应尚未失效的旧列表
+ */
+@Component
+public class MaterialListingCache {
+
+    private final boolean enabled;
+    private final CourseListingVersionRepository courseListingVersionRepository;
+    private final Cache<ListingKey, List<MaterialDto>> cache;
+    private final Cache<ListingKey, MaterialListingStamp> stamps;
+
+    /**
+     * 各课程班级列表的当前代数
+     */
+    private final ConcurrentMap<Long, AtomicLong> classGenerations = new ConcurrentHashMap<>();
+
+    /**
+     * 全部列表的当前代数，失效全部列表时递增
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    public MaterialListingCache(MaterialListingCacheProperties properties,
+            CourseListingVersionRepository courseListingVersionRepository, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.courseListingVersionRepository = courseListingVersionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        this.stamps = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "materialListings");
+        CaffeineCacheMetrics.monitor(meterRegistry, stamps, "materialListingStamps");
+    }
+
+    /**
+     * 课程的列表版本；未缓存时按主键读取
+     */
+    public MaterialListingStamp getStamp(Long courseId) {
+        if (!enabled) {
+            return loadStamp(courseId);
+        }
+        return stamps.get(new ListingKey(epoch.get(), courseId, Scope.STAMP, null, 0), key -> loadStamp(courseId));
+    }
+
+    public List<MaterialDto> getCourseListing(Long courseId, Supplier<List<MaterialDto>> loader) {
+        return get(new ListingKey(epoch.get(), courseId, Scope.COURSE, null, 0), loader);
+    }
+
+    public List<MaterialDto> getChapterListing(Long courseId, Integer chapterOrder,
+            Supplier<List<MaterialDto>> loader) {
+        return get(new ListingKey(epoch.get(), courseId, Scope.CHAPTER, chapterOrder.longValue(), 0), loader);
+    }
+
+    public List<MaterialDto> getClassListing(Long courseId, Long classId, Supplier<List<MaterialDto>> loader) {
+        return get(new ListingKey(epoch.get(), courseId, Scope.CLASS, classId,
+                classGeneration(courseId).get()), loader);
+    }
+
+    /**
+     * 事务提交后失效课程的资料列表及指定章节、班级的列表；没有事务时立即失效
+     *
+     * @param classIds 受影响的班级，为 null 表示资料对所有班级可见，失效该课程所有班级的列表
+     */
+    public void evictAfterCommit(Long courseId, Collection<Integer> chapterOrders, Collection<Long> classIds) {
+        if (!enabled) {
+            return;
+        }
+        Set<Integer> chapters = Set.copyOf(chapterOrders.stream().filter(Objects::nonNull).toList());
+        Set<Long> classes = classIds != null ? Set.copyOf(classIds) : null;
+        Runnable eviction = () -> evict(courseId, chapters, classes);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+
+    /**
+     * 立即失效课程的列表版本、资料列表及指定章节、班级的列表（其他实例的变更由变更日志同步）
+     *
+     * @param classes 受影响的班级，为 null 表示失效该课程所有班级的列表
+     */
+    public void evict(Long courseId, Set<Integer> chapters, Set<Long> classes) {
+        if (!enabled) {
+            return;
+        }
+        cache.invalidate(new ListingKey(epoch.get(), courseId, Scope.COURSE, null, 0));
+        for (Integer chapter : chapters) {
+            cache.invalidate(new ListingKey(epoch.get(), courseId, Scope.CHAPTER, chapter.longValue(), 0));
+        }
+        if (classes == null) {
+            // 先切换代数再清理旧键：遍历看不到重建中的键，它们完成后落在旧代数下，等待过期或容量淘汰
+            long generation = classGeneration(courseId).incrementAndGet();
+            cache.asMap().keySet().removeIf(key -> key.scope() == Scope.CLASS && key.courseId().equals(courseId)
+                    && key.generation() < generation);
+        } else {
+            long generation = classGeneration(courseId).get();
+            for (Long classId : classes) {
+                cache.invalidate(new ListingKey(epoch.get(), courseId, Scope.CLASS, classId, generation));
+            }
+        }
+        stamps.invalidate(new ListingKey(epoch.get(), courseId, Scope.STAMP, null, 0));
+    }
+
+    /**
+     * 失效全部列表
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        cache.invalidateAll();
+        stamps.invalidateAll();
+    }
+
+    private AtomicLong classGeneration(Long courseId) {
+        return classGenerations.computeIfAbsent(courseId, id -> new AtomicLong());
+    }
+
+    private List<MaterialDto> get(ListingKey key, Supplier<List<MaterialDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        return cache.get(key, k -> List.copyOf(loader.get()));
+    }
+
+    private MaterialListingStamp loadStamp(Long courseId) {
+        MaterialListingStamp stamp = courseListingVersionRepository.findStamp(courseId);
+        if (stamp == null) {
+            stamp = new MaterialListingStamp();
+            stamp.setCourseId(courseId);
+        }
+        return stamp;
+    }
+
+    private enum Scope {
+        COURSE, CHAPTER, CLASS, STAMP
+    }
+
+    /**
+     * @param epoch      全部列表的代数
+     * @param generation 班级列表所属的代数，其余恒为 0
+     */
+    private record ListingKey(long epoch, Long courseId, Scope scope, Long value, long generation) {
+    }
+}
@@ -3,9 +3,18 @@ package com.osc.oscms.materialservice.service;
 import com.osc.oscms.common.dto.material.MaterialDto;
 import com.osc.oscms.common.dto.material.MaterialVersionDto;
 import com.osc.oscms.common.dto.material.MaterialUploadDto;
+import com.osc.oscms.materialservice.dto.BulkUploadResult;
+import com.osc.oscms.materialservice.dto.CourseMaterialStats;
+import com.osc.oscms.materialservice.dto.MaterialBatchResult;
+import com.osc.oscms.materialservice.dto.MaterialDownload;
+import com.osc.oscms.materialservice.dto.MaterialListingStamp;
+import com.osc.oscms.materialservice.dto.MaterialPage;
+import com.osc.oscms.materialservice.storage.StoredFile;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * 教学资料服务接口
@@ -17,6 +26,16 @@ public interface MaterialService {
      */
     MaterialDto uploadMaterial(Long courseId, MaterialUploadDto uploadDto);
 
+    /**
+     * 以已写入存储的文件创建新资料（分片上传提交时使用）
+     */
+    MaterialDto createMaterial(Long courseId, MaterialUploadDto uploadDto, StoredFile storedFile, String filename);
+
+    /**
+     * 批量上传资料：每个文件创建一个资料，共用章节、可见班级和描述，返回每个文件的结果
+     */
+    List<BulkUploadResult> bulkUploadMaterials(Long courseId, MaterialUploadDto uploadDto, List<MultipartFile> files);
+
     /**
      * 更新资料信息（不包括文件）
      */
@@ -27,6 +46,11 @@ public interface MaterialService {
      */
     MaterialVersionDto uploadNewVersion(Long materialId, String description, MultipartFile file);
 
+    /**
+     * 以已写入存储的文件创建资料新版本（分片上传提交时使用）
+     */
+    MaterialVersionDto createVersion(Long materialId, String description, StoredFile storedFile, String filename);
+
     /**
      * 删除资料
      */
@@ -42,11 +66,41 @@ public interface MaterialService {
      */
     MaterialDto getMaterialById(Long materialId);
 
+    /**
+     * 批量获取资料详情，结果按传入顺序排列，不存在的ID单独列出
+     */
+    MaterialBatchResult getMaterialsByIds(List<Long> materialIds);
+
     /**
      * 根据课程ID获取资料列表
      */
     List<MaterialDto> getMaterialsByCourseId(Long courseId);
 
+    /**
+     * 按游标分页获取课程资料，cursor 为空时返回第一页
+     */
+    MaterialPage getMaterialsPageByCourseId(Long courseId, String cursor, int limit);
+
+    /**
+     * 流式读取课程的全部资料，每读到一条即交给 consumer，内存占用与资料数量无关
+     */
+    void streamMaterialsByCourseId(Long courseId, Consumer<MaterialDto> consumer);
+
+    /**
+     * 获取课程资料列表的版本标记，用于列表接口的条件请求；与列表一同缓存
+     */
+    MaterialListingStamp getListingStamp(Long courseId);
+
+    /**
+     * 统计课程的资料数，只执行一条 COUNT 查询
+     */
+    long countMaterialsByCourseId(Long courseId);
+
+    /**
+     * 批量统计课程的资料数、各章节资料数、版本数和文件总大小，结果按传入的课程顺序排列
+     */
+    List<CourseMaterialStats> getCourseStats(List<Long> courseIds);
+
     /**
      * 根据课程ID和班级ID获取可见资料
      */
@@ -73,7 +127,15 @@ public interface MaterialService {
     void setMaterialVisibility(Long materialId, List<String> visibleClassIds);
 
     /**
-     * 下载资料文件
+     * 解析资料下载信息，version 为空时取最新版本
+     * 只执行一次查询，不访问文件系统，可先据此处理条件请求
+     */
+    MaterialDownload downloadMaterial(Long materialId, Integer version);
+
+    /**
+     * 打开下载文件
+     * 返回指向磁盘文件的资源句柄，由调用方流式写出，不在内存中缓冲整个文件；
+     * 返回热点缓存中的 CachedFileResource 时，调用方写出后须调用 release（DownloadResponseWriter 已处理）
      */
-    byte[] downloadMaterial(Long materialId, Integer version);
+    Resource openDownload(MaterialDownload download);
 }
@@ -0,0 +1,251 @@
+package com.osc.oscms.materialservice.service.impl;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.common.dto.material.MaterialUploadDto;
+import com.osc.oscms.common.exception.BusinessException;
+import com.osc.oscms.materialservice.client.CourseServiceCache;
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.domain.MaterialUpload;
+import com.osc.oscms.materialservice.dto.UploadSessionDto;
+import com.osc.oscms.materialservice.repository.MaterialUploadRepository;
+import com.osc.oscms.materialservice.service.ChunkedUploadService;
+import com.osc.oscms.materialservice.service.MaterialService;
+import com.osc.oscms.materialservice.storage.MaterialFileStorage;
+import com.osc.oscms.materialservice.storage.StorageBusyException;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor.Lane;
+import com.osc.oscms.materialservice.storage.StoredFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 资料分片上传服务实现类
+ * 分片直接写入会话文件的对应偏移处，提交时会话文件整体移动到正式存储位置，
+ * 上传过程中不在内存或临时目录中额外复制文件内容。
+ * 每次分片写入在会话记录上登记，提交只在没有进行中的写入时开始，开始提交后新的写入被拒绝；
+ * 内容摘要随分片写入增量计算，提交时不再重新读取整个文件
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChunkedUploadServiceImpl implements ChunkedUploadService {
+
+    private static final int PURGE_BATCH_SIZE = 100;
+
+    private final MaterialUploadRepository materialUploadRepository;
+    private final MaterialService materialService;
+    private final MaterialFileStorage materialFileStorage;
+    private final StorageIoExecutor storageIoExecutor;
+    private final CourseServiceCache courseServiceCache;
+    private final FileStorageProperties fileStorageProperties;
+
+    @Override
+    public UploadSessionDto createSession(Long courseId, Long materialId, String filename, long totalSize,
+            String userId) {
+        log.info("Creating chunked upload for course: {}, material: {}, size: {}", courseId, materialId, totalSize);
+
+        if ((courseId == null) == (materialId == null)) {
+            throw new BusinessException("课程ID和资料ID必须且只能指定一个");
+        }
+        if (!StringUtils.hasText(filename)) {
+            throw new BusinessException("文件名不能为空");
+        }
+        FileStorageProperties.ChunkedUpload settings = fileStorageProperties.getChunkedUpload();
+        if (totalSize <= 0 || totalSize > settings.getMaxFileSize().toBytes()) {
+            throw new BusinessException("文件大小超出限制");
+        }
+        if (materialId != null) {
+            materialService.getMaterialById(materialId);
+        } else if (courseServiceCache.getCourse(courseId).isEmpty()) {
+            throw new BusinessException("课程不存在");
+        }
+
+        int chunkSize = (int) settings.getChunkSize().toBytes();
+        MaterialUpload upload = new MaterialUpload();
+        upload.setId(UUID.randomUUID().toString());
+        upload.setCourseId(courseId);
+        upload.setMaterialId(materialId);
+        upload.setFilename(filename);
+        upload.setTotalSize(totalSize);
+        upload.setChunkSize(chunkSize);
+        upload.setChunkCount((int) ((totalSize + chunkSize - 1) / chunkSize));
+        upload.setStatus(MaterialUpload.STATUS_OPEN);
+        upload.setCreatedBy(userId);
+        upload.setCreatedAt(LocalDateTime.now());
+        upload.setUpdatedAt(LocalDateTime.now());
+
+        try {
+            materialFileStorage.createUploadFile(upload.getId());
+        } catch (IOException e) {
+            log.error("Failed to create upload file: {}", upload.getId(), e);
+            throw new BusinessException("文件保存失败");
+        }
+        materialUploadRepository.insert(upload);
+
+        return convertToDto(upload, List.of());
+    }
+
+    @Override
+    public UploadSessionDto getSession(String uploadId, String userId) {
+        MaterialUpload upload = getOwnedSession(uploadId, userId);
+        return convertToDto(upload, materialUploadRepository.findChunkIndexes(uploadId));
+    }
+
+    @Override
+    public void writeChunk(String uploadId, int chunkIndex, long contentLength, InputStream content,
+            String userId) {
+        MaterialUpload upload = getOwnedSession(uploadId, userId);
+        if (!MaterialUpload.STATUS_OPEN.equals(upload.getStatus())) {
+            throw new BusinessException("上传会话正在提交");
+        }
+        if (chunkIndex < 0 || chunkIndex >= upload.getChunkCount()) {
+            throw new BusinessException("分片序号超出范围");
+        }
+
+        long position = (long) chunkIndex * upload.getChunkSize();
+        long expected = Math.min(upload.getChunkSize(), upload.getTotalSize() - position);
+        if (contentLength >= 0 && contentLength != expected) {
+            throw new BusinessException("分片大小不正确，应为 " + expected + " 字节");
+        }
+
+        // 登记写入，与提交互斥：提交开始后登记失败，登记期间提交无法开始
+        if (materialUploadRepository.beginWrite(uploadId) == 0) {
+            throw new BusinessException("上传会话正在提交");
+        }
+        try {
+            storageIoExecutor.run(Lane.WRITE, () -> materialFileStorage.writeUploadChunk(uploadId, position, expected,
+                    content));
+            materialUploadRepository.insertChunk(uploadId, chunkIndex);
+        } catch (NoSuchFileException e) {
+            throw new BusinessException("上传会话不存在");
+        } catch (IOException e) {
+            log.error("Failed to write chunk {} of upload {}", chunkIndex, uploadId, e);
+            throw new BusinessException("分片写入失败");
+        } finally {
+            materialUploadRepository.endWrite(uploadId);
+        }
+    }
+
+    @Override
+    public MaterialDto commit(String uploadId, Integer chapterOrder, List<String> visibleClassIds,
+            String description, String userId) {
+        log.info("Committing chunked upload: {}", uploadId);
+
+        MaterialUpload upload = getOwnedSession(uploadId, userId);
+        if (materialUploadRepository.countChunks(uploadId) < upload.getChunkCount()) {
+            throw new BusinessException("分片尚未全部上传");
+        }
+        if (materialUploadRepository.beginCommit(uploadId) == 0) {
+            throw new BusinessException("上传会话正在提交或仍有分片正在写入");
+        }
+        // 已切换为提交中且没有进行中的写入，写入次数不会再变化
+        int chunkWrites = materialUploadRepository.selectById(uploadId).getChunkWrites();
+
+        StoredFile storedFile;
+        try {
+            storedFile = storageIoExecutor.call(Lane.WRITE, () -> materialFileStorage.commitUpload(uploadId,
+                    upload.getFilename(), chunkWrites));
+        } catch (StorageBusyException e) {
+            materialUploadRepository.updateStatus(uploadId, MaterialUpload.STATUS_COMMITTING,
+                    MaterialUpload.STATUS_OPEN);
+            throw e;
+        } catch (IOException e) {
+            log.error("Failed to commit upload file: {}", uploadId, e);
+            materialUploadRepository.updateStatus(uploadId, MaterialUpload.STATUS_COMMITTING,
+                    MaterialUpload.STATUS_OPEN);
+            throw new BusinessException("文件保存失败");
+        }
+
+        // 文件已移出会话目录，无论记录是否创建成功会话都不再可用
+        try {
+            if (upload.getMaterialId() != null) {
+                materialService.createVersion(upload.getMaterialId(), description, storedFile, upload.getFilename());
+                return materialService.getMaterialById(upload.getMaterialId());
+            }
+            MaterialUploadDto uploadDto = new MaterialUploadDto();
+            uploadDto.setChapterOrder(chapterOrder);
+            uploadDto.setVisibleForClasses(visibleClassIds);
+            uploadDto.setDescription(description);
+            return materialService.createMaterial(upload.getCourseId(), uploadDto, storedFile, upload.getFilename());
+        } finally {
+            materialUploadRepository.deleteById(uploadId);
+        }
+    }
+
+    @Override
+    public void abort(String uploadId, String userId) {
+        log.info("Aborting chunked upload: {}", uploadId);
+
+        getOwnedSession(uploadId, userId);
+        deleteSession(uploadId);
+    }
+
+    /**
+     * 清理长时间无活动的上传会话；先按条件删除会话记录，删除成功后再删除会话文件，
+     * 查询之后开始写入或提交的会话不会被清理
+     */
+    @Scheduled(fixedDelayString = "PT10M", initialDelayString = "PT1M")
+    public void purgeInactiveSessions() {
+        long ttlSeconds = fileStorageProperties.getChunkedUpload().getSessionTtl().toSeconds();
+        List<MaterialUpload> inactive;
+        int purged = 0;
+        do {
+            inactive = materialUploadRepository.findInactiveFor(ttlSeconds, PURGE_BATCH_SIZE);
+            for (MaterialUpload upload : inactive) {
+                if (materialUploadRepository.deleteIfInactiveFor(upload.getId(), ttlSeconds) == 0) {
+                    continue;
+                }
+                deleteUploadFile(upload.getId());
+                purged++;
+            }
+        } while (inactive.size() == PURGE_BATCH_SIZE);
+        if (purged > 0) {
+            log.info("Purged {} inactive chunked uploads", purged);
+        }
+    }
+
+    private void deleteSession(String uploadId) {
+        deleteUploadFile(uploadId);
+        materialUploadRepository.deleteById(uploadId);
+    }
+
+    private void deleteUploadFile(String uploadId) {
+        try {
+            materialFileStorage.deleteUploadFile(uploadId);
+        } catch (IOException e) {
+            log.error("Failed to delete upload file: {}", uploadId, e);
+        }
+    }
+
+    private MaterialUpload getOwnedSession(String uploadId, String userId) {
+        MaterialUpload upload = materialUploadRepository.selectById(uploadId);
+        if (upload == null || !upload.getCreatedBy().equals(userId)) {
+            throw new BusinessException("上传会话不存在");
+        }
+        return upload;
+    }
+
+    private UploadSessionDto convertToDto(MaterialUpload upload, List<Integer> receivedChunks) {
+        UploadSessionDto dto = new UploadSessionDto();
+        dto.setUploadId(upload.getId());
+        dto.setCourseId(upload.getCourseId());
+        dto.setMaterialId(upload.getMaterialId());
+        dto.setFilename(upload.getFilename());
+        dto.setTotalSize(upload.getTotalSize());
+        dto.setChunkSize(upload.getChunkSize());
+        dto.setChunkCount(upload.getChunkCount());
+        dto.setReceivedChunks(receivedChunks);
+        dto.setExpiresAt(upload.getUpdatedAt().plus(fileStorageProperties.getChunkedUpload().getSessionTtl()));
+        return dto;
+    }
+}
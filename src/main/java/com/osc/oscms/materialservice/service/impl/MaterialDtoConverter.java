@@ -0,0 +1,75 @@
+package com.osc.oscms.materialservice.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.materialservice.domain.Material;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 资料实体与 DTO 的转换，以及可见班级列表与 visible_classes 列 JSON 之间的转换
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MaterialDtoConverter {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 可见班级列表转为 JSON；列表为空表示对全部学生可见，返回 null
+     */
+    public String classIdsToJson(List<String> classIds) {
+        if (classIds == null || classIds.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(classIds);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to convert class IDs to JSON", e);
+            return null;
+        }
+    }
+
+    /**
+     * 解析 visible_classes 列；为空或无法解析时返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> jsonToClassIds(String json) {
+        if (json == null || json.trim().isEmpty()) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(json, List.class);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to convert JSON to class IDs", e);
+            return List.of();
+        }
+    }
+
+    public MaterialDto toDto(Material material) {
+        MaterialDto dto = new MaterialDto();
+        dto.setId(material.getId());
+        dto.setCourseId(material.getCourseId());
+        dto.setChapterOrder(material.getChapterOrder());
+        dto.setCreatedAt(material.getCreatedAt());
+        dto.setUpdatedAt(material.getUpdatedAt());
+
+        // 转换可见班级ID
+        dto.setVisibleForClasses(jsonToClassIds(material.getVisibleClasses()));
+
+        // 最新版本信息取自资料主表上的冗余字段
+        if (material.getLatestVersionId() != null) {
+            dto.setFilename(material.getLatestFilename());
+            dto.setUrl(material.getLatestUrl());
+            dto.setLatestVersion(material.getLatestVersion());
+            dto.setType(material.getLatestFileType());
+        }
+
+        return dto;
+    }
+}
@@ -1,34 +1,60 @@
 package com.osc.oscms.materialservice.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.osc.oscms.materialservice.client.CourseServiceClient;
+import com.osc.oscms.materialservice.client.CourseServiceCache;
 import com.osc.oscms.materialservice.domain.Material;
 import com.osc.oscms.materialservice.domain.MaterialVersion;
+import com.osc.oscms.materialservice.dto.BulkUploadResult;
+import com.osc.oscms.materialservice.dto.ChapterMaterialCount;
+import com.osc.oscms.materialservice.dto.CourseMaterialStats;
+import com.osc.oscms.materialservice.dto.MaterialBatchResult;
+import com.osc.oscms.materialservice.dto.MaterialDownload;
+import com.osc.oscms.materialservice.dto.MaterialListingCursor;
+import com.osc.oscms.materialservice.dto.MaterialListingStamp;
+import com.osc.oscms.materialservice.dto.MaterialPage;
 import com.osc.oscms.common.dto.material.MaterialDto;
 import com.osc.oscms.common.dto.material.MaterialVersionDto;
 import com.osc.oscms.common.dto.material.MaterialUploadDto;
+import com.osc.oscms.materialservice.repository.CourseChapterCounterRepository;
 import com.osc.oscms.materialservice.repository.MaterialRepository;
 import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.repository.MaterialVisibilityRepository;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import com.osc.oscms.materialservice.service.MaterialListingCache;
 import com.osc.oscms.materialservice.service.MaterialService;
+import com.osc.oscms.materialservice.storage.FileReaper;
+import com.osc.oscms.materialservice.storage.HotFileCache;
+import com.osc.oscms.materialservice.storage.MaterialFileStorage;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor.Lane;
+import com.osc.oscms.materialservice.storage.StoredFile;
 import com.osc.oscms.common.exception.BusinessException;
-import com.osc.oscms.common.response.ApiResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.BeanUtils;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -39,13 +65,38 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MaterialServiceImpl implements MaterialService {
 
+    /**
+     * 分页查询单页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * 单次统计的最大课程数
+     */
+    private static final int MAX_STATS_COURSES = 200;
+
+    /**
+     * 单次批量查询的最大资料数
+     */
+    private static final int MAX_BATCH_SIZE = 200;
+
+    /**
+     * 单次批量上传的最大文件数
+     */
+    private static final int MAX_BULK_UPLOAD_FILES = 100;
+
     private final MaterialRepository materialRepository;
     private final MaterialVersionRepository materialVersionRepository;
-    private final CourseServiceClient courseServiceClient;
-    private final ObjectMapper objectMapper;
-
-    // 文件存储路径配置
-    private static final String UPLOAD_DIR = "uploads/materials/";
+    private final MaterialVisibilityRepository materialVisibilityRepository;
+    private final CourseChapterCounterRepository courseChapterCounterRepository;
+    private final CourseServiceCache courseServiceCache;
+    private final MaterialFileStorage materialFileStorage;
+    private final FileReaper fileReaper;
+    private final HotFileCache hotFileCache;
+    private final StorageIoExecutor storageIoExecutor;
+    private final MaterialListingCache materialListingCache;
+    private final MaterialChangeFeed materialChangeFeed;
+    private final MaterialDtoConverter materialDtoConverter;
 
     @Override
     @Transactional
@@ -62,31 +113,138 @@ public class MaterialServiceImpl implements MaterialService {
         }
 
         // 保存文件
-        String fileName = saveFile(file);
+        StoredFile storedFile = saveFile(file);
+        fileReaper.releaseOnRollback(List.of(storedFile.key()));
+
+        return insertMaterial(courseId, uploadDto, storedFile, file.getOriginalFilename());
+    }
+
+    @Override
+    @Transactional
+    public MaterialDto createMaterial(Long courseId, MaterialUploadDto uploadDto, StoredFile storedFile,
+            String filename) {
+        log.info("Creating material from stored file for course: {}, chapter: {}", courseId,
+                uploadDto.getChapterOrder());
+        fileReaper.releaseOnRollback(List.of(storedFile.key()));
 
+        // 验证课程是否存在
+        validateCourseExists(courseId);
+
+        return insertMaterial(courseId, uploadDto, storedFile, filename);
+    }
+
+    private MaterialDto insertMaterial(Long courseId, MaterialUploadDto uploadDto, StoredFile storedFile,
+            String filename) {
         // 创建资料记录
         Material material = new Material();
         material.setCourseId(courseId);
-        material.setChapterOrder(
-                uploadDto.getChapterOrder() != null ? uploadDto.getChapterOrder() : getNextChapterOrder(courseId));
-        material.setVisibleClasses(convertClassIdsToJson(uploadDto.getVisibleForClasses()));
+        material.setChapterOrder(allocateChapterOrder(courseId, uploadDto.getChapterOrder()));
+        material.setVisibleClasses(materialDtoConverter.classIdsToJson(uploadDto.getVisibleForClasses()));
+        material.setNextVersion(2);
         material.setCreatedAt(LocalDateTime.now());
         material.setUpdatedAt(LocalDateTime.now());
 
         materialRepository.insert(material);
+        replaceVisibleClasses(material.getId(), uploadDto.getVisibleForClasses());
 
         // 创建第一个版本
-        MaterialVersion version = new MaterialVersion();
-        version.setMaterialId(material.getId());
-        version.setVersion(1);
-        version.setFilename(file.getOriginalFilename());
-        version.setUrl(fileName);
-        version.setDescription(uploadDto.getDescription());
-        version.setUploadedAt(LocalDateTime.now());
-
+        MaterialVersion version = newVersion(material.getId(), 1, uploadDto.getDescription(), storedFile, filename);
         materialVersionRepository.insert(version);
+        markLatestVersion(material, version);
+        evictListings(material);
+
+        return materialDtoConverter.toDto(material);
+    }
+
+    @Override
+    @Transactional
+    public List<BulkUploadResult> bulkUploadMaterials(Long courseId, MaterialUploadDto uploadDto,
+            List<MultipartFile> files) {
+        log.info("Bulk uploading {} materials for course: {}", files == null ? 0 : files.size(), courseId);
+
+        if (files == null || files.isEmpty()) {
+            throw new BusinessException("文件不能为空");
+        }
+        if (files.size() > MAX_BULK_UPLOAD_FILES) {
+            throw new BusinessException("单次最多上传 " + MAX_BULK_UPLOAD_FILES + " 个文件");
+        }
+        Set<Long> classIds = parseClassIds(uploadDto.getVisibleForClasses());
+
+        // 课程只验证一次
+        validateCourseExists(courseId);
+
+        // 并行写入存储；单个文件失败不影响其他文件
+        List<CompletableFuture<StoredFile>> stores = files.stream()
+                .map(file -> file == null || file.isEmpty()
+                        ? CompletableFuture.<StoredFile>failedFuture(new BusinessException("文件不能为空"))
+                        : storageIoExecutor.submit(() -> saveFile(file)))
+                .toList();
+
+        List<BulkUploadResult> results = new ArrayList<>(files.size());
+        List<Material> materials = new ArrayList<>();
+        List<MaterialVersion> versions = new ArrayList<>();
+        List<BulkUploadResult> storedResults = new ArrayList<>();
+        String visibleClasses = materialDtoConverter.classIdsToJson(uploadDto.getVisibleForClasses());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            BulkUploadResult result = new BulkUploadResult();
+            result.setFilename(file != null ? file.getOriginalFilename() : null);
+            results.add(result);
+            try {
+                StoredFile storedFile = stores.get(i).join();
+                Material material = new Material();
+                material.setCourseId(courseId);
+                material.setVisibleClasses(visibleClasses);
+                material.setNextVersion(2);
+                material.setCreatedAt(now);
+                material.setUpdatedAt(now);
+                materials.add(material);
+                versions.add(newVersion(null, 1, uploadDto.getDescription(), storedFile, result.getFilename()));
+                storedResults.add(result);
+            } catch (CompletionException e) {
+                result.setError(e.getCause() instanceof BusinessException be ? be.getMessage() : "文件保存失败");
+            }
+        }
+        if (materials.isEmpty()) {
+            return results;
+        }
+        fileReaper.releaseOnRollback(versions.stream().map(MaterialVersion::getUrl).toList());
+
+        // 章节顺序一次分配：未指定时所有文件放入同一个新章节
+        Integer chapterOrder = allocateChapterOrder(courseId, uploadDto.getChapterOrder());
+        materials.forEach(material -> material.setChapterOrder(chapterOrder));
+
+        // 资料、版本、可见班级各一条多行插入，最新版本指针一条更新
+        materialRepository.insertBatch(materials);
+        for (int i = 0; i < materials.size(); i++) {
+            versions.get(i).setMaterialId(materials.get(i).getId());
+        }
+        materialVersionRepository.insertBatch(versions);
+        List<Long> materialIds = materials.stream().map(Material::getId).toList();
+        materialRepository.initLatestVersions(materialIds);
+        if (!classIds.isEmpty()) {
+            materialVisibilityRepository.insertBatchForMaterials(materialIds, classIds);
+        }
 
-        return convertToDto(material);
+        for (int i = 0; i < materials.size(); i++) {
+            Material material = materials.get(i);
+            MaterialVersion version = versions.get(i);
+            material.setLatestVersionId(version.getId());
+            material.setLatestVersion(version.getVersion());
+            material.setLatestFilename(version.getFilename());
+            material.setLatestUrl(version.getUrl());
+            material.setLatestFileSize(version.getFileSize());
+            material.setLatestFileType(version.getFileType());
+
+            BulkUploadResult result = storedResults.get(i);
+            result.setSuccess(true);
+            result.setMaterial(materialDtoConverter.toDto(material));
+        }
+        evictListings(materials.get(0));
+
+        return results;
     }
 
     @Override
@@ -95,20 +253,25 @@ public class MaterialServiceImpl implements MaterialService {
         log.info("Updating material: {}", materialId);
 
         Material material = getMaterialByIdOrThrow(materialId);
+        Material before = new Material();
+        BeanUtils.copyProperties(material, before);
 
         // 更新字段
-        if (materialDto.getChapterOrder() != null) {
+        if (materialDto.getChapterOrder() != null && !materialDto.getChapterOrder().equals(material.getChapterOrder())) {
+            courseChapterCounterRepository.reserve(material.getCourseId(), materialDto.getChapterOrder());
             material.setChapterOrder(materialDto.getChapterOrder());
         }
         if (materialDto.getVisibleForClasses() != null) {
-            material.setVisibleClasses(convertClassIdsToJson(materialDto.getVisibleForClasses()));
+            material.setVisibleClasses(materialDtoConverter.classIdsToJson(materialDto.getVisibleForClasses()));
+            replaceVisibleClasses(materialId, materialDto.getVisibleForClasses());
         }
 
         material.setUpdatedAt(LocalDateTime.now());
 
         materialRepository.updateById(material);
+        evictListings(before, material);
 
-        return convertToDto(material);
+        return materialDtoConverter.toDto(material);
     }
 
     @Override
@@ -124,48 +287,76 @@ public class MaterialServiceImpl implements MaterialService {
         }
 
         // 保存文件
-        String fileName = saveFile(file);
+        StoredFile storedFile = saveFile(file);
+        fileReaper.releaseOnRollback(List.of(storedFile.key()));
 
-        // 获取下一个版本号
-        Integer nextVersion = materialVersionRepository.getMaxVersionByMaterialId(materialId) + 1;
+        return insertVersion(material, description, storedFile, file.getOriginalFilename());
+    }
 
-        // 创建新版本
-        MaterialVersion version = new MaterialVersion();
-        version.setMaterialId(materialId);
-        version.setVersion(nextVersion);
-        version.setFilename(file.getOriginalFilename());
-        version.setUrl(fileName);
-        version.setDescription(description);
-        version.setUploadedAt(LocalDateTime.now());
+    @Override
+    @Transactional
+    public MaterialVersionDto createVersion(Long materialId, String description, StoredFile storedFile,
+            String filename) {
+        log.info("Creating new version from stored file for material: {}", materialId);
+        fileReaper.releaseOnRollback(List.of(storedFile.key()));
 
+        Material material = getMaterialByIdOrThrow(materialId);
+        return insertVersion(material, description, storedFile, filename);
+    }
+
+    private MaterialVersionDto insertVersion(Material material, String description, StoredFile storedFile,
+            String filename) {
+        // 原子分配下一个版本号
+        Integer nextVersion = allocateVersion(material.getId());
+
+        // 创建新版本
+        MaterialVersion version = newVersion(material.getId(), nextVersion, description, storedFile, filename);
         materialVersionRepository.insert(version);
 
-        // 更新资料的更新时间
+        // 更新资料的更新时间和最新版本
         material.setUpdatedAt(LocalDateTime.now());
         materialRepository.updateById(material);
+        markLatestVersion(material, version);
+        evictListings(material);
 
         return convertVersionToDto(version);
     }
 
+    private MaterialVersion newVersion(Long materialId, Integer versionNumber, String description,
+            StoredFile storedFile, String filename) {
+        MaterialVersion version = new MaterialVersion();
+        version.setMaterialId(materialId);
+        version.setVersion(versionNumber);
+        version.setFilename(filename);
+        version.setUrl(storedFile.key());
+        version.setFileSize(storedFile.size());
+        version.setFileType(resolveFileType(filename));
+        version.setContentType(storedFile.contentType());
+        version.setContentHash(storedFile.sha256());
+        version.setDescription(description);
+        version.setUploadedAt(LocalDateTime.now());
+        return version;
+    }
+
     @Override
     @Transactional
     public void deleteMaterial(Long materialId) {
         log.info("Deleting material: {}", materialId);
 
         // 验证资料存在
-        getMaterialByIdOrThrow(materialId);
+        Material material = getMaterialByIdOrThrow(materialId);
 
-        // 删除所有版本的文件
         List<MaterialVersion> versions = materialVersionRepository.findByMaterialId(materialId);
-        for (MaterialVersion version : versions) {
-            deleteFile(version.getUrl());
-        }
 
         // 删除版本记录
         materialVersionRepository.deleteByMaterialId(materialId);
 
         // 删除资料记录
         materialRepository.deleteById(materialId);
+        evictListings(material);
+
+        // 提交后删除不再被任何版本引用的文件
+        fileReaper.releaseAfterCommit(versions.stream().map(MaterialVersion::getUrl).toList());
     }
 
     @Override
@@ -178,53 +369,197 @@ public class MaterialServiceImpl implements MaterialService {
             throw new BusinessException("版本不存在");
         }
 
-        // 检查是否是唯一版本
-        List<MaterialVersion> versions = materialVersionRepository.findByMaterialId(version.getMaterialId());
-        if (versions.size() <= 1) {
+        // 锁定资料行：并发的删除和上传新版本（分配版本号时取同一行锁）依次执行，
+        // 以下版本数和最新版本都在锁内读取
+        Material material = materialRepository.selectByIdForUpdate(version.getMaterialId());
+        if (material == null) {
+            throw new BusinessException("资料不存在");
+        }
+        if (materialVersionRepository.deleteById(versionId) == 0) {
+            throw new BusinessException("版本不存在");
+        }
+        // 删除后没有剩余版本时抛出异常，事务回滚恢复该版本
+        if (materialVersionRepository.countByMaterialId(material.getId()) == 0) {
             throw new BusinessException("不能删除最后一个版本");
         }
 
-        // 删除文件
-        deleteFile(version.getUrl());
-
-        // 删除版本记录
-        materialVersionRepository.deleteById(versionId);
+        // 提交后删除不再被任何版本引用的文件
+        fileReaper.releaseAfterCommit(List.of(version.getUrl()));
+
+        // 删除的是最新版本时，最新版本指针回退到剩余版本中版本号最大的一个
+        if (versionId.equals(material.getLatestVersionId())) {
+            MaterialVersion latest = materialVersionRepository.findLatestVersionByMaterialId(material.getId())
+                    .orElseThrow(() -> new IllegalStateException("Material " + material.getId() + " has no versions"));
+            material.setUpdatedAt(LocalDateTime.now());
+            materialRepository.updateById(material);
+            markLatestVersion(material, latest);
+            evictListings(material);
+        }
     }
 
     @Override
     public MaterialDto getMaterialById(Long materialId) {
         Material material = getMaterialByIdOrThrow(materialId);
-        return convertToDto(material);
+        return materialDtoConverter.toDto(material);
+    }
+
+    @Override
+    public MaterialBatchResult getMaterialsByIds(List<Long> materialIds) {
+        log.info("Getting {} materials by id", materialIds == null ? 0 : materialIds.size());
+
+        if (materialIds == null || materialIds.isEmpty()) {
+            throw new BusinessException("资料ID不能为空");
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long materialId : materialIds) {
+            if (materialId == null) {
+                throw new BusinessException("资料ID不能为空");
+            }
+            ids.add(materialId);
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException("单次最多查询 " + MAX_BATCH_SIZE + " 个资料");
+        }
+
+        // 最新版本信息在资料主表上，一次 IN 查询即可得到完整结果
+        Map<Long, Material> found = materialRepository.selectByIds(ids).stream()
+                .collect(Collectors.toMap(Material::getId, material -> material));
+
+        List<MaterialDto> materials = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            Material material = found.get(id);
+            if (material != null) {
+                materials.add(materialDtoConverter.toDto(material));
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        MaterialBatchResult result = new MaterialBatchResult();
+        result.setMaterials(materials);
+        result.setMissingIds(missingIds);
+        return result;
     }
 
     @Override
     public List<MaterialDto> getMaterialsByCourseId(Long courseId) {
         log.info("Getting materials for course: {}", courseId);
 
-        List<Material> materials = materialRepository.findByCourseId(courseId);
-        return materials.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return materialListingCache.getCourseListing(courseId, () -> materialRepository.findByCourseId(courseId)
+                .stream()
+                .map(materialDtoConverter::toDto)
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public MaterialPage getMaterialsPageByCourseId(Long courseId, String cursor, int limit) {
+        log.info("Getting material page for course: {}, limit: {}", courseId, limit);
+
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        MaterialListingCursor after = StringUtils.hasText(cursor) ? MaterialListingCursor.decode(cursor) : null;
+
+        // 多取一条判断是否还有下一页
+        List<Material> materials = materialRepository.findPageByCourseId(courseId, after, pageSize + 1);
+        boolean hasMore = materials.size() > pageSize;
+        List<Material> items = hasMore ? materials.subList(0, pageSize) : materials;
+
+        MaterialPage page = new MaterialPage();
+        page.setItems(items.stream()
+                .map(materialDtoConverter::toDto)
+                .collect(Collectors.toList()));
+        if (hasMore) {
+            Material last = items.get(items.size() - 1);
+            page.setNextCursor(new MaterialListingCursor(last.getChapterOrder(), last.getCreatedAt(), last.getId())
+                    .encode());
+        }
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamMaterialsByCourseId(Long courseId, Consumer<MaterialDto> consumer) {
+        log.info("Streaming materials for course: {}", courseId);
+
+        // 游标在事务结束前保持打开，读取期间同一连接上不能执行其他查询
+        try (Cursor<Material> materials = materialRepository.streamByCourseId(courseId)) {
+            for (Material material : materials) {
+                consumer.accept(materialDtoConverter.toDto(material));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long countMaterialsByCourseId(Long courseId) {
+        return materialRepository.countByCourseId(courseId);
+    }
+
+    @Override
+    public List<CourseMaterialStats> getCourseStats(List<Long> courseIds) {
+        log.info("Getting material stats for {} courses", courseIds == null ? 0 : courseIds.size());
+
+        if (courseIds == null || courseIds.isEmpty()) {
+            throw new BusinessException("课程ID不能为空");
+        }
+        Map<Long, CourseMaterialStats> stats = new LinkedHashMap<>();
+        for (Long courseId : courseIds) {
+            if (courseId == null) {
+                throw new BusinessException("课程ID不能为空");
+            }
+            stats.computeIfAbsent(courseId, id -> {
+                CourseMaterialStats courseStats = new CourseMaterialStats();
+                courseStats.setCourseId(id);
+                courseStats.setMaterialCount(0L);
+                courseStats.setVersionCount(0L);
+                courseStats.setTotalBytes(0L);
+                courseStats.setChapters(new ArrayList<>());
+                return courseStats;
+            });
+        }
+        if (stats.size() > MAX_STATS_COURSES) {
+            throw new BusinessException("单次最多统计 " + MAX_STATS_COURSES + " 个课程");
+        }
+
+        for (ChapterMaterialCount chapter : materialRepository.countByCourseAndChapter(stats.keySet())) {
+            CourseMaterialStats courseStats = stats.get(chapter.getCourseId());
+            courseStats.getChapters().add(chapter);
+            courseStats.setMaterialCount(courseStats.getMaterialCount() + chapter.getMaterialCount());
+        }
+        for (CourseMaterialStats versions : materialVersionRepository.sumVersionsByCourse(stats.keySet())) {
+            CourseMaterialStats courseStats = stats.get(versions.getCourseId());
+            courseStats.setVersionCount(versions.getVersionCount());
+            courseStats.setTotalBytes(versions.getTotalBytes());
+        }
+        return new ArrayList<>(stats.values());
+    }
+
+    @Override
+    public MaterialListingStamp getListingStamp(Long courseId) {
+        return materialListingCache.getStamp(courseId);
     }
 
     @Override
     public List<MaterialDto> getVisibleMaterialsByCourseAndClass(Long courseId, Long classId) {
         log.info("Getting visible materials for course: {}, class: {}", courseId, classId);
 
-        List<Material> materials = materialRepository.findVisibleMaterialsByCourseAndClass(courseId, classId);
-        return materials.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return materialListingCache.getClassListing(courseId, classId, () -> materialRepository
+                .findVisibleMaterialsByCourseAndClass(courseId, classId)
+                .stream()
+                .map(materialDtoConverter::toDto)
+                .collect(Collectors.toList()));
     }
 
     @Override
     public List<MaterialDto> getMaterialsByChapter(Long courseId, Integer chapterOrder) {
         log.info("Getting materials for course: {}, chapter: {}", courseId, chapterOrder);
 
-        List<Material> materials = materialRepository.findByCourseIdAndChapterOrder(courseId, chapterOrder);
-        return materials.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return materialListingCache.getChapterListing(courseId, chapterOrder, () -> materialRepository
+                .findByCourseIdAndChapterOrder(courseId, chapterOrder)
+                .stream()
+                .map(materialDtoConverter::toDto)
+                .collect(Collectors.toList()));
     }
 
     @Override
@@ -259,34 +594,27 @@ public class MaterialServiceImpl implements MaterialService {
         log.info("Setting visibility for material: {}", materialId);
 
         Material material = getMaterialByIdOrThrow(materialId);
-        material.setVisibleClasses(convertClassIdsToJson(visibleClassIds));
+        Material before = new Material();
+        BeanUtils.copyProperties(material, before);
+        material.setVisibleClasses(materialDtoConverter.classIdsToJson(visibleClassIds));
         material.setUpdatedAt(LocalDateTime.now());
 
         materialRepository.updateById(material);
+        replaceVisibleClasses(materialId, visibleClassIds);
+        evictListings(before, material);
     }
 
     @Override
-    public byte[] downloadMaterial(Long materialId, Integer version) {
+    public MaterialDownload downloadMaterial(Long materialId, Integer version) {
         log.info("Downloading material: {}, version: {}", materialId, version);
 
-        MaterialVersion materialVersion;
-        if (version != null) {
-            Optional<MaterialVersion> versionOpt = materialVersionRepository
-                    .findByMaterialIdAndVersion(materialId, version);
-            if (versionOpt.isEmpty()) {
-                throw new BusinessException("指定版本不存在");
-            }
-            materialVersion = versionOpt.get();
-        } else {
-            Optional<MaterialVersion> latestOpt = materialVersionRepository
-                    .findLatestVersionByMaterialId(materialId);
-            if (latestOpt.isEmpty()) {
-                throw new BusinessException("资料文件不存在");
-            }
-            materialVersion = latestOpt.get();
-        }
+        return materialVersionRepository.findDownload(materialId, version)
+                .orElseThrow(() -> new BusinessException(version != null ? "指定版本不存在" : "资料文件不存在"));
+    }
 
-        return readFile(materialVersion.getUrl());
+    @Override
+    public Resource openDownload(MaterialDownload download) {
+        return openFile(download.getUrl());
     }
 
     private Material getMaterialByIdOrThrow(Long materialId) {
@@ -298,118 +626,163 @@ public class MaterialServiceImpl implements MaterialService {
     }
 
     private void validateCourseExists(Long courseId) {
+        Optional<Map<String, Object>> course;
         try {
-            ApiResponse<Map<String, Object>> response = courseServiceClient.getCourseById(courseId);
-            if (!response.isSuccess() || response.getData() == null) {
-                throw new BusinessException("课程不存在");
-            }
+            course = courseServiceCache.getCourse(courseId);
         } catch (Exception e) {
             log.error("Failed to validate course existence: {}", courseId, e);
             throw new BusinessException("无法验证课程信息");
         }
+        if (course.isEmpty()) {
+            throw new BusinessException("课程不存在");
+        }
     }
 
-    private Integer getNextChapterOrder(Long courseId) {
-        return materialRepository.getMaxChapterOrderByCourseId(courseId) + 1;
+    /**
+     * 将指定版本记为资料的最新版本（同时更新内存中的实体）
+     */
+    private void markLatestVersion(Material material, MaterialVersion version) {
+        material.setLatestVersionId(version.getId());
+        material.setLatestVersion(version.getVersion());
+        material.setLatestFilename(version.getFilename());
+        material.setLatestUrl(version.getUrl());
+        material.setLatestFileSize(version.getFileSize());
+        material.setLatestFileType(version.getFileType());
+        materialRepository.updateLatestVersion(version);
     }
 
-    private String convertClassIdsToJson(List<String> classIds) {
-        if (classIds == null || classIds.isEmpty()) {
-            return null;
-        }
-        try {
-            return objectMapper.writeValueAsString(classIds);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to convert class IDs to JSON", e);
-            return null;
+    /**
+     * 记录资料变更：事务提交后失效资料变更前后所在的课程、章节和班级列表，其他实例经变更日志同步
+     */
+    private void evictListings(Material... states) {
+        Set<Integer> chapterOrders = new HashSet<>();
+        Set<Long> classIds = new HashSet<>();
+        boolean allClasses = false;
+        for (Material state : states) {
+            chapterOrders.add(state.getChapterOrder());
+            List<?> visibleClasses = materialDtoConverter.jsonToClassIds(state.getVisibleClasses());
+            if (visibleClasses.isEmpty()) {
+                allClasses = true;
+            }
+            for (Object classId : visibleClasses) {
+                try {
+                    classIds.add(Long.valueOf(String.valueOf(classId).trim()));
+                } catch (NumberFormatException e) {
+                    // 无法解析的班级ID不会出现在班级列表的缓存键中
+                }
+            }
         }
+        materialChangeFeed.recordListingChange(states[0].getId(), states[0].getCourseId(), chapterOrders,
+                allClasses ? null : classIds);
     }
 
-    @SuppressWarnings("unchecked")
-    private List<String> convertJsonToClassIds(String json) {
-        if (json == null || json.trim().isEmpty()) {
-            return List.of();
-        }
-        try {
-            return objectMapper.readValue(json, List.class);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to convert JSON to class IDs", e);
-            return List.of();
+    /**
+     * 分配章节顺序：未指定时由课程计数器原子分配一个新章节，指定时推进计数器使之后分配的章节排在其后。
+     * 须在事务中调用，见 requireTransaction
+     */
+    Integer allocateChapterOrder(Long courseId, Integer chapterOrder) {
+        requireTransaction();
+        if (chapterOrder != null) {
+            courseChapterCounterRepository.reserve(courseId, chapterOrder);
+            return chapterOrder;
         }
+        courseChapterCounterRepository.increment(courseId);
+        return (int) (courseChapterCounterRepository.lastInsertId() - 1);
     }
 
-    private String saveFile(MultipartFile file) {
-        try {
-            // 创建上传目录
-            Path uploadPath = Paths.get(UPLOAD_DIR);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
+    /**
+     * 原子分配资料的下一个版本号；须在事务中调用，见 requireTransaction
+     */
+    Integer allocateVersion(Long materialId) {
+        requireTransaction();
+        if (materialRepository.incrementNextVersion(materialId) == 0) {
+            throw new BusinessException("资料不存在");
+        }
+        return (int) (materialRepository.lastInsertId() - 1);
+    }
 
-            // 生成唯一文件名
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null && originalFilename.contains(".")
-                    ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                    : "";
-            String fileName = UUID.randomUUID().toString() + extension;
+    /**
+     * 计数器递增后通过 SELECT LAST_INSERT_ID() 读取分配的值，该值按连接隔离。
+     * 事务外 MyBatis 每条语句各自从连接池取连接，读取时可能拿到另一个连接上的值；
+     * 事务内两条语句使用同一连接，且计数器行锁保持到提交，并发分配不会重复
+     */
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Counter allocation must run inside a transaction");
+        }
+    }
 
-            // 保存文件
-            Path filePath = uploadPath.resolve(fileName);
-            Files.copy(file.getInputStream(), filePath);
+    /**
+     * 同步资料的可见班级关联表，与 visible_classes 列保持一致（空列表表示所有班级可见）
+     */
+    private void replaceVisibleClasses(Long materialId, List<String> classIds) {
+        materialVisibilityRepository.deleteByMaterialId(materialId);
+        Set<Long> ids = parseClassIds(classIds);
+        if (!ids.isEmpty()) {
+            materialVisibilityRepository.insertBatch(materialId, ids);
+        }
+    }
 
-            return fileName;
-        } catch (IOException e) {
-            log.error("Failed to save file", e);
-            throw new BusinessException("文件保存失败");
+    private Set<Long> parseClassIds(List<String> classIds) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (classIds == null) {
+            return ids;
+        }
+        for (String classId : classIds) {
+            try {
+                ids.add(Long.valueOf(classId.trim()));
+            } catch (NumberFormatException | NullPointerException e) {
+                throw new BusinessException("班级ID格式错误: " + classId);
+            }
         }
+        return ids;
     }
 
-    private void deleteFile(String fileName) {
+    /**
+     * 写入上传文件，按写入类别排队；排队已满时抛出 StorageBusyException
+     */
+    private StoredFile saveFile(MultipartFile file) {
         try {
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(fileName);
-            Files.deleteIfExists(filePath);
+            return storageIoExecutor.call(Lane.WRITE, () -> materialFileStorage.store(file));
         } catch (IOException e) {
-            log.error("Failed to delete file: {}", fileName, e);
+            // store 自行处理写入失败，这里不会出现
+            throw new UncheckedIOException(e);
         }
     }
 
-    private byte[] readFile(String fileName) {
+    /**
+     * 打开存储文件；热点文件直接取自缓存，不访问文件系统，返回的缓存资源由调用方释放。
+     * 未命中时打开文件（及热点缓存的映射加载）按读取类别排队，排队已满时抛出 StorageBusyException；
+     * 之后写出响应不再占用读取名额
+     */
+    private Resource openFile(String fileName) {
+        Resource cached = hotFileCache.getIfPresent(fileName);
+        if (cached != null) {
+            return cached;
+        }
         try {
-            Path filePath = Paths.get(UPLOAD_DIR).resolve(fileName);
-            return Files.readAllBytes(filePath);
+            return storageIoExecutor.call(Lane.READ, () -> {
+                Path filePath = materialFileStorage.resolve(fileName);
+                if (!Files.isReadable(filePath)) {
+                    log.error("Failed to read file: {}", fileName);
+                    throw new BusinessException("文件读取失败");
+                }
+                return hotFileCache.open(fileName, filePath);
+            });
         } catch (IOException e) {
             log.error("Failed to read file: {}", fileName, e);
             throw new BusinessException("文件读取失败");
         }
     }
 
-    private MaterialDto convertToDto(Material material) {
-        MaterialDto dto = new MaterialDto();
-        dto.setId(material.getId());
-        dto.setCourseId(material.getCourseId());
-        dto.setChapterOrder(material.getChapterOrder());
-        dto.setCreatedAt(material.getCreatedAt());
-        dto.setUpdatedAt(material.getUpdatedAt());
-
-        // 转换可见班级ID
-        dto.setVisibleForClasses(convertJsonToClassIds(material.getVisibleClasses()));
-
-        // 获取最新版本信息
-        Optional<MaterialVersion> latestVersionOpt = materialVersionRepository
-                .findLatestVersionByMaterialId(material.getId());
-        if (latestVersionOpt.isPresent()) {
-            MaterialVersion latestVersion = latestVersionOpt.get();
-            dto.setFilename(latestVersion.getFilename());
-            dto.setUrl(latestVersion.getUrl());
-            dto.setLatestVersion(latestVersion.getVersion());
-            // 设置资料类型，可以从文件扩展名推断或从version中获取
-            String filename = latestVersion.getFilename();
-            if (filename != null && filename.contains(".")) {
-                dto.setType(filename.substring(filename.lastIndexOf(".") + 1).toUpperCase());
-            }
+    /**
+     * 资料类型取文件扩展名的大写形式
+     */
+    private String resolveFileType(String filename) {
+        if (filename != null && filename.contains(".")) {
+            return filename.substring(filename.lastIndexOf(".") + 1).toUpperCase();
         }
-
-        return dto;
+        return null;
     }
 
     private MaterialVersionDto convertVersionToDto(MaterialVersion version) {
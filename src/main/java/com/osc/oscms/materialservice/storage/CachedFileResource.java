@@ -0,0 +1,122 @@
+package com.osc.oscms.materialservice.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热点文件缓存中的文件内容
+ * 内容位于内存映射区域而非堆内存，每次读取使用独立的只读视图，可被并发下载共享。
+ * 映射按引用计数管理：缓存持有一个引用，HotFileCache 交给调用方的资源另持有一个，
+ * 调用方读取完毕后须调用 release()；引用归零时立即解除映射，之后不能再读取
+ */
+public class CachedFileResource extends AbstractResource {
+
+    private final String key;
+    private final ByteBuffer content;
+    private final long lastModified;
+    private final Runnable unmap;
+
+    /**
+     * 初始引用属于缓存
+     */
+    private final AtomicInteger references = new AtomicInteger(1);
+
+    CachedFileResource(String key, ByteBuffer content, long lastModified, Runnable unmap) {
+        this.key = key;
+        this.content = content;
+        this.lastModified = lastModified;
+        this.unmap = unmap;
+    }
+
+    /**
+     * 增加一个引用；映射已解除时返回 false
+     */
+    public boolean retain() {
+        int count;
+        do {
+            count = references.get();
+            if (count == 0) {
+                return false;
+            }
+        } while (!references.compareAndSet(count, count + 1));
+        return true;
+    }
+
+    /**
+     * 释放一个引用，最后一个引用释放时解除映射
+     */
+    public void release() {
+        int count = references.decrementAndGet();
+        if (count == 0) {
+            unmap.run();
+        } else if (count < 0) {
+            throw new IllegalStateException("Cached file released more times than retained: " + key);
+        }
+    }
+
+    /**
+     * 返回指定区间的只读视图
+     */
+    public ByteBuffer slice(long position, long count) {
+        return content.slice(Math.toIntExact(position), Math.toIntExact(count)).asReadOnlyBuffer();
+    }
+
+    @Override
+    public long contentLength() {
+        return content.capacity();
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public ReadableByteChannel readableChannel() {
+        ByteBuffer source = content.asReadOnlyBuffer();
+        return new ReadableByteChannel() {
+            private boolean open = true;
+
+            @Override
+            public int read(ByteBuffer dst) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(dst.remaining(), source.remaining());
+                dst.put(source.slice(source.position(), count));
+                source.position(source.position() + count);
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() {
+                open = false;
+            }
+        };
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return Channels.newInputStream(readableChannel());
+    }
+
+    @Override
+    public String getDescription() {
+        return "Cached material file [" + key + "]";
+    }
+}
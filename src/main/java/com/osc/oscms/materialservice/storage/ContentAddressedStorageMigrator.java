@@ -0,0 +1,100 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.domain.Material;
+import com.osc.oscms.materialservice.domain.MaterialVersion;
+import com.osc.oscms.materialservice.repository.MaterialRepository;
+import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 内容寻址存储迁移
+ * 启用内容寻址后把历史 UUID 命名的文件逐批转为按内容摘要存储：
+ * 先建立摘要文件，再更新版本记录并失效受影响课程的列表缓存，最后删除旧文件，任意一步中断都不影响下载，重启后继续
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContentAddressedStorageMigrator {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final MaterialFileStorage materialFileStorage;
+    private final MaterialVersionRepository materialVersionRepository;
+    private final MaterialRepository materialRepository;
+    private final MaterialChangeFeed materialChangeFeed;
+    private final TransactionTemplate transactionTemplate;
+
+    public void migrate() {
+        if (!materialFileStorage.isContentAddressed()) {
+            return;
+        }
+        long afterId = 0;
+        int migrated = 0;
+        List<MaterialVersion> batch;
+        do {
+            batch = materialVersionRepository.findWithoutContentHash(afterId, BATCH_SIZE);
+            for (MaterialVersion version : batch) {
+                afterId = version.getId();
+                try {
+                    if (migrateFile(version.getUrl())) {
+                        migrated++;
+                    }
+                } catch (Exception e) {
+                    log.warn("Failed to migrate file {} to content-addressed storage", version.getUrl(), e);
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (migrated > 0) {
+            log.info("Migrated {} files to content-addressed storage", migrated);
+        }
+    }
+
+    private boolean migrateFile(String url) throws IOException {
+        Path legacy = materialFileStorage.resolve(url);
+        if (!Files.exists(legacy)) {
+            log.warn("Skipping missing file during content-addressed migration: {}", url);
+            return false;
+        }
+
+        StoredFile stored = materialFileStorage.importFile(legacy);
+        transactionTemplate.executeWithoutResult(status -> {
+            // 缓存的列表带有最新版本的文件路径，迁移前先找出最新版本指向旧文件的资料
+            List<Material> affected = materialRepository.findByLatestUrl(url);
+            materialVersionRepository.updateStorage(url, stored.key(), stored.sha256(), stored.size(),
+                    stored.contentType());
+            materialRepository.syncLatestStorage(stored.key());
+            recordListingChanges(affected);
+        });
+
+        // 列表缓存已在提交后失效，此时删除旧文件不会再有列表指向它
+        if (!url.equals(stored.key()) && materialVersionRepository.countByUrl(url) == 0) {
+            materialFileStorage.delete(url);
+            materialChangeFeed.recordFileDeleted(url);
+        }
+        return true;
+    }
+
+    /**
+     * 按课程记录列表变化，失效受影响章节及该课程所有班级的列表
+     */
+    private void recordListingChanges(List<Material> affected) {
+        Map<Long, Set<Integer>> chaptersByCourse = affected.stream()
+                .collect(Collectors.groupingBy(Material::getCourseId,
+                        Collectors.mapping(Material::getChapterOrder, Collectors.toSet())));
+        chaptersByCourse.forEach((courseId, chapterOrders) ->
+                materialChangeFeed.recordListingChange(null, courseId, chapterOrders, null));
+    }
+}
@@ -0,0 +1,148 @@
+package com.osc.oscms.materialservice.storage;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.util.StringUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * 按文件头识别内容类型
+ * 优先依据文件头的魔数，ZIP / OLE2 / MP4 等容器格式再参考扩展名细分（如 docx、xls）；
+ * 无法识别的文件按扩展名推断，扩展名声称是文本但内容含二进制数据时按二进制处理
+ */
+final class ContentTypeSniffer {
+
+    /**
+     * 识别时读取的文件头长度
+     */
+    static final int HEAD_LENGTH = 8192;
+
+    private static final String OCTET_STREAM = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+
+    private ContentTypeSniffer() {
+    }
+
+    /**
+     * @param head     文件开头的字节（position 到 limit）
+     * @param filename 原始文件名，可为空
+     */
+    static String sniff(ByteBuffer head, String filename) {
+        Optional<MediaType> byName = StringUtils.hasText(filename)
+                ? MediaTypeFactory.getMediaType(filename)
+                : Optional.empty();
+        if (!head.hasRemaining()) {
+            return byName.map(MediaType::toString).orElse(OCTET_STREAM);
+        }
+
+        byte[] bytes = new byte[head.remaining()];
+        head.duplicate().get(bytes);
+
+        if (startsWith(bytes, 0, "%PDF-")) {
+            return MediaType.APPLICATION_PDF_VALUE;
+        }
+        if (startsWith(bytes, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (startsWith(bytes, 0, 0xFF, 0xD8, 0xFF)) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (startsWith(bytes, 0, "GIF87a") || startsWith(bytes, 0, "GIF89a")) {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (startsWith(bytes, 0, "RIFF") && startsWith(bytes, 8, "WEBP")) {
+            return "image/webp";
+        }
+        if (startsWith(bytes, 0, 'P', 'K', 0x03, 0x04)) {
+            // docx / xlsx / pptx / odt / epub 等都是 ZIP 容器
+            return byName.filter(ContentTypeSniffer::isZipBased).map(MediaType::toString).orElse("application/zip");
+        }
+        if (startsWith(bytes, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            // doc / xls / ppt 等 OLE2 复合文档
+            return byName.filter(ContentTypeSniffer::isOle2Based).map(MediaType::toString)
+                    .orElse("application/x-ole-storage");
+        }
+        if (startsWith(bytes, 4, "ftyp")) {
+            return byName.filter(type -> "video".equals(type.getType()) || "audio".equals(type.getType()))
+                    .map(MediaType::toString).orElse("video/mp4");
+        }
+        if (startsWith(bytes, 0, "ID3") || startsWith(bytes, 0, 0xFF, 0xFB)) {
+            return "audio/mpeg";
+        }
+        if (startsWith(bytes, 0, 0x1F, 0x8B)) {
+            return "application/gzip";
+        }
+        if (startsWith(bytes, 0, "Rar!")) {
+            return "application/vnd.rar";
+        }
+        if (startsWith(bytes, 0, '7', 'z', 0xBC, 0xAF, 0x27, 0x1C)) {
+            return "application/x-7z-compressed";
+        }
+
+        if (isText(bytes)) {
+            return byName.filter(ContentTypeSniffer::isTextual).map(MediaType::toString)
+                    .orElse(MediaType.TEXT_PLAIN_VALUE);
+        }
+        return byName.filter(type -> !isTextual(type)).map(MediaType::toString).orElse(OCTET_STREAM);
+    }
+
+    private static boolean isZipBased(MediaType type) {
+        String subtype = type.getSubtype();
+        return subtype.startsWith("vnd.openxmlformats") || subtype.startsWith("vnd.oasis.opendocument")
+                || subtype.equals("epub+zip") || subtype.equals("java-archive") || subtype.equals("zip");
+    }
+
+    private static boolean isOle2Based(MediaType type) {
+        String subtype = type.getSubtype();
+        return subtype.equals("msword") || subtype.startsWith("vnd.ms-") || subtype.equals("vnd.visio");
+    }
+
+    private static boolean isTextual(MediaType type) {
+        String subtype = type.getSubtype();
+        return "text".equals(type.getType()) || subtype.equals("json") || subtype.endsWith("+json")
+                || subtype.equals("xml") || subtype.endsWith("+xml") || subtype.equals("javascript");
+    }
+
+    /**
+     * 不含 NUL 且控制字符很少时视为文本；不校验编码，GBK 等非 UTF-8 文本同样识别为文本
+     */
+    private static boolean isText(byte[] bytes) {
+        int control = 0;
+        for (byte b : bytes) {
+            if (b == 0) {
+                return false;
+            }
+            if (b > 0 && b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                control++;
+            }
+        }
+        return control * 100 < bytes.length;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, String ascii) {
+        byte[] expected = ascii.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... expected) {
+        if (bytes.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
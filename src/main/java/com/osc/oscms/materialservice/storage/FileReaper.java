@@ -0,0 +1,192 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.domain.FileTombstone;
+import com.osc.oscms.materialservice.repository.FileTombstoneRepository;
+import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor.Lane;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 存储文件回收
+ * 删除版本时在同一事务中写入墓碑，提交后由后台线程检查引用计数并删除文件，请求不等待磁盘 I/O；
+ * 事务回滚时墓碑随之回滚，文件保留。新上传的文件在事务回滚时补记墓碑，避免留下孤立文件。
+ * 后台队列已满或实例中途退出时，未处理的墓碑由定时任务继续处理。
+ * 内容寻址存储下同一文件可能被新上传复用，删除经 MaterialFileStorage#deleteIfUnused 先移出再复核，
+ * 不会删掉刚被复用的文件
+ */
+@Slf4j
+@Component
+public class FileReaper {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final FileTombstoneRepository fileTombstoneRepository;
+    private final MaterialVersionRepository materialVersionRepository;
+    private final MaterialFileStorage materialFileStorage;
+    private final MaterialChangeFeed materialChangeFeed;
+    private final StorageIoExecutor storageIoExecutor;
+    private final Duration gracePeriod;
+    private final ThreadPoolTaskExecutor executor;
+
+    /**
+     * 回滚后补记墓碑使用的独立事务
+     */
+    private final TransactionTemplate requiresNew;
+
+    public FileReaper(FileTombstoneRepository fileTombstoneRepository,
+            MaterialVersionRepository materialVersionRepository, MaterialFileStorage materialFileStorage,
+            MaterialChangeFeed materialChangeFeed, StorageIoExecutor storageIoExecutor,
+            FileStorageProperties properties, PlatformTransactionManager transactionManager) {
+        this.fileTombstoneRepository = fileTombstoneRepository;
+        this.materialVersionRepository = materialVersionRepository;
+        this.materialFileStorage = materialFileStorage;
+        this.materialChangeFeed = materialChangeFeed;
+        this.storageIoExecutor = storageIoExecutor;
+        this.gracePeriod = properties.getReclaim().getGracePeriod();
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1_000);
+        executor.setThreadNamePrefix("file-reaper-");
+        executor.initialize();
+    }
+
+    /**
+     * 释放版本对文件的引用：在当前事务中记录墓碑，提交后由后台线程删除不再被引用的文件
+     */
+    public void releaseAfterCommit(Collection<String> fileKeys) {
+        if (fileKeys.isEmpty()) {
+            return;
+        }
+        Set<String> keys = Set.copyOf(fileKeys);
+        fileTombstoneRepository.insertBatch(keys);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reapAsync(keys);
+                }
+            });
+        } else {
+            reapAsync(keys);
+        }
+    }
+
+    /**
+     * 新写入的文件在当前事务回滚时记录墓碑（回滚后在新事务中写入，不随事务撤销）。
+     * afterCompletion 时原事务的连接仍绑定在线程上，必须另开事务，否则写入会落在已回滚的连接上
+     */
+    public void releaseOnRollback(Collection<String> fileKeys) {
+        if (fileKeys.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Set<String> keys = Set.copyOf(fileKeys);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    try {
+                        requiresNew.executeWithoutResult(tx -> fileTombstoneRepository.insertBatch(keys));
+                    } catch (Exception e) {
+                        log.warn("Failed to record tombstones for rolled back files {}", keys, e);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 处理积压的墓碑
+     */
+    @Scheduled(fixedDelayString = "PT1M", initialDelayString = "PT1M")
+    public void reapPending() {
+        long afterId = 0;
+        int reaped = 0;
+        List<FileTombstone> batch;
+        do {
+            batch = fileTombstoneRepository.findAfter(afterId, BATCH_SIZE);
+            Set<String> keys = new LinkedHashSet<>();
+            for (FileTombstone tombstone : batch) {
+                afterId = tombstone.getId();
+                keys.add(tombstone.getFileKey());
+            }
+            for (String key : keys) {
+                if (reap(key)) {
+                    reaped++;
+                }
+            }
+        } while (batch.size() == BATCH_SIZE);
+        if (reaped > 0) {
+            log.info("Reaped {} pending file tombstones", reaped);
+        }
+    }
+
+    private void reapAsync(Set<String> keys) {
+        try {
+            executor.execute(() -> keys.forEach(this::reap));
+        } catch (RejectedExecutionException e) {
+            log.debug("File reaper queue is full, {} files left for the scheduled sweep", keys.size());
+        }
+    }
+
+    /**
+     * 删除不再被引用的文件并清除其墓碑；文件仍在宽限期内时保留墓碑，返回 false
+     */
+    private boolean reap(String key) {
+        try {
+            if (materialVersionRepository.countByUrl(key) == 0) {
+                Instant cutoff = Instant.now().minus(gracePeriod);
+                Optional<Instant> lastModified = materialFileStorage.lastModified(key);
+                if (lastModified.isPresent() && !lastModified.get().isBefore(cutoff)) {
+                    return false;
+                }
+                if (lastModified.isPresent()) {
+                    // 检查之后文件可能被新上传复用：移出后按修改时间和引用数复核，未通过时保留墓碑等下次处理
+                    boolean deleted = storageIoExecutor.call(Lane.DELETE, () -> materialFileStorage.deleteIfUnused(
+                            key, cutoff, () -> materialVersionRepository.countByUrl(key) > 0));
+                    if (!deleted) {
+                        return false;
+                    }
+                    materialChangeFeed.recordFileDeleted(key);
+                }
+            }
+            fileTombstoneRepository.deleteByFileKey(key);
+            return true;
+        } catch (StorageBusyException e) {
+            log.debug("Storage busy, leaving file {} for the next sweep", key);
+            return false;
+        } catch (Exception e) {
+            log.warn("Failed to reap file {}", key, e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,179 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.Cleaner;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 热点资料文件缓存
+ * 上课时大量学生在短时间内下载同一文件，按存储键缓存文件的只读内存映射：
+ * 内容不占用 JVM 堆，按文件大小计权并在字节预算内按访问频率淘汰，
+ * 同一文件的并发未命中只映射、载入一次（调用方在读取类别的排队内打开文件）。
+ * 淘汰或失效的映射在最后一个读取方释放后立即解除（而不是等待 GC），
+ * 映射字节数以 material.file.cache.resident.bytes 导出，包含已淘汰但仍在读取中的映射。
+ * 存储文件写入后不再修改（先写临时文件再原子移动），映射期间不会被截断；
+ * 文件删除时由 MaterialFileStorage 使缓存失效
+ */
+@Slf4j
+@Component
+public class HotFileCache {
+
+    /**
+     * 取得的缓存资源被淘汰而未能增加引用时的重试次数
+     */
+    private static final int MAX_RETAIN_ATTEMPTS = 3;
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * 显式解除映射（sun.misc.Unsafe#invokeCleaner），运行时不支持时为 null
+     */
+    private static final MethodHandle INVOKE_CLEANER = findInvokeCleaner();
+
+    private final boolean enabled;
+    private final long maxFileSize;
+    private final Cache<String, CachedFileResource> cache;
+    private final AtomicLong mappedBytes = new AtomicLong();
+
+    public HotFileCache(FileStorageProperties properties, MeterRegistry meterRegistry) {
+        FileStorageProperties.HotCache settings = properties.getHotCache();
+        if (settings.isEnabled() && INVOKE_CLEANER == null) {
+            // 无法显式解除映射时，淘汰的映射要等到 GC 才释放，字节预算形同虚设
+            log.warn("Hot file cache disabled: the runtime does not support unmapping buffers explicitly");
+        }
+        this.enabled = settings.isEnabled() && INVOKE_CLEANER != null;
+        this.maxFileSize = Math.min(settings.getMaxFileSize().toBytes(), Integer.MAX_VALUE);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(settings.getMaxSize().toBytes())
+                .<String, CachedFileResource>weigher((key, resource) -> (int) resource.contentLength())
+                .expireAfterAccess(settings.getExpireAfterAccess())
+                .removalListener((key, resource, cause) -> {
+                    if (resource != null) {
+                        resource.release();
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "materialFiles");
+        Gauge.builder("material.file.cache.resident.bytes", mappedBytes, AtomicLong::get)
+                .description("Bytes of material files currently mapped by the hot file cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 取已缓存的文件，未缓存时返回 null；返回的资源读取完毕后须调用 CachedFileResource#release
+     */
+    public Resource getIfPresent(String key) {
+        if (!enabled) {
+            return null;
+        }
+        CachedFileResource resource = cache.getIfPresent(key);
+        return resource != null && resource.retain() ? resource : null;
+    }
+
+    /**
+     * 打开存储文件；大小在缓存上限内的文件映射后放入缓存，其余直接返回文件资源。
+     * 返回 CachedFileResource 时，读取完毕后须调用 release
+     */
+    public Resource open(String key, Path file) throws IOException {
+        if (!enabled) {
+            return new FileSystemResource(file);
+        }
+        long size = Files.size(file);
+        if (size == 0 || size > maxFileSize) {
+            return new FileSystemResource(file);
+        }
+        try {
+            for (int attempt = 0; attempt < MAX_RETAIN_ATTEMPTS; attempt++) {
+                CachedFileResource resource = cache.get(key, k -> map(k, file));
+                if (resource.retain()) {
+                    return resource;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // 刚映射的文件连续被淘汰（缓存容量过小），直接读文件
+        return new FileSystemResource(file);
+    }
+
+    /**
+     * 使缓存失效；仍在读取的映射在读取方释放后解除
+     */
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    private CachedFileResource map(String key, Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.load();
+            long size = buffer.capacity();
+            mappedBytes.addAndGet(size);
+            AtomicBoolean mapped = new AtomicBoolean(true);
+            // 调用方漏掉 release 时，映射随缓冲区被回收而解除，此时同步更新映射字节数
+            CLEANER.register(buffer, () -> {
+                if (mapped.compareAndSet(true, false)) {
+                    mappedBytes.addAndGet(-size);
+                }
+            });
+            log.debug("Cached material file {} ({} bytes)", key, size);
+            return new CachedFileResource(key, buffer, Files.getLastModifiedTime(file).toMillis(),
+                    () -> unmap(key, buffer, mapped, size));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void unmap(String key, MappedByteBuffer buffer, AtomicBoolean mapped, long size) {
+        if (!mapped.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invokeExact((ByteBuffer) buffer);
+        } catch (Throwable e) {
+            // 解除失败时映射仍会在缓冲区被回收后释放
+            log.warn("Failed to unmap cached material file {}", key, e);
+        }
+        mappedBytes.addAndGet(-size);
+        log.debug("Unmapped material file {} ({} bytes)", key, size);
+    }
+
+    private static MethodHandle findInvokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
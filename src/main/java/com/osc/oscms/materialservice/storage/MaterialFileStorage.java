@@ -0,0 +1,583 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.osc.oscms.common.exception.BusinessException;
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.config.FileStorageProperties.Layout;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * 资料文件存储
+ * 上传时单遍读取：经直接缓冲区写盘的同时计算 SHA-256、字节数并按文件头识别内容类型。开启内容寻址后文件以内容摘要命名，相同内容只保存一份；
+ * 否则沿用 UUID + 扩展名的命名方式。
+ * 分片布局下文件按存储键前缀分散到 ab/cd/ 两级子目录，读取时兼容尚未迁移的平铺文件
+ */
+@Slf4j
+@Component
+public class MaterialFileStorage {
+
+    /**
+     * 上传中的临时文件目录，与正式文件位于同一文件系统以保证原子移动
+     */
+    static final String INCOMING_DIR = ".incoming";
+
+    private static final Pattern HEX_PREFIX = Pattern.compile("^[0-9a-f]{4}");
+
+    /**
+     * 读写文件使用的直接缓冲区大小
+     */
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 最多复用的直接缓冲区个数，超出时用完即释放
+     */
+    private static final int MAX_POOLED_BUFFERS = 32;
+
+    private final Path root;
+    private final boolean contentAddressed;
+    private final Layout layout;
+    private final HotFileCache hotFileCache;
+
+    /**
+     * 本实例上分片上传会话的增量摘要，会话无活动超过有效期后丢弃
+     */
+    private final Cache<String, UploadDigest> uploadDigests;
+
+    /**
+     * 复用的直接缓冲区；直接缓冲区分配开销较大，避免每次上传重新分配
+     */
+    private final BlockingQueue<ByteBuffer> ioBuffers = new ArrayBlockingQueue<>(MAX_POOLED_BUFFERS);
+
+    public MaterialFileStorage(FileStorageProperties properties, HotFileCache hotFileCache) {
+        this.root = Paths.get(properties.getPath());
+        this.contentAddressed = properties.isContentAddressed();
+        this.layout = properties.getLayout();
+        this.hotFileCache = hotFileCache;
+        this.uploadDigests = Caffeine.newBuilder()
+                .expireAfterAccess(properties.getChunkedUpload().getSessionTtl())
+                .build();
+    }
+
+    /**
+     * 是否启用内容寻址存储
+     */
+    public boolean isContentAddressed() {
+        return contentAddressed;
+    }
+
+    /**
+     * 当前目录布局
+     */
+    public Layout getLayout() {
+        return layout;
+    }
+
+    /**
+     * 保存上传文件
+     */
+    public StoredFile store(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename());
+        } catch (IOException e) {
+            log.error("Failed to save file", e);
+            throw new BusinessException("文件保存失败");
+        }
+    }
+
+    /**
+     * 将输入流写入存储，写入过程中计算内容摘要、字节数并识别内容类型
+     */
+    public StoredFile store(InputStream in, String originalFilename) throws IOException {
+        Path temp = newTempFile();
+        try {
+            Inspection inspection;
+            try (ReadableByteChannel source = Channels.newChannel(in);
+                    FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                inspection = transfer(source, target, originalFilename);
+            }
+            String hash = inspection.sha256();
+            String key = contentAddressed ? hash : UUID.randomUUID() + extensionOf(originalFilename);
+            if (contentAddressed && reuse(resolve(key))) {
+                // 相同内容已存在，直接复用
+                log.debug("Deduplicated upload {} onto existing blob {}", originalFilename, key);
+            } else {
+                Files.move(temp, targetPath(key), StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredFile(key, inspection.size(), hash, inspection.contentType());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 分片上传会话文件的位置
+     */
+    public Path uploadPath(String uploadId) {
+        return root.resolve(INCOMING_DIR).resolve(uploadId + ".upload");
+    }
+
+    /**
+     * 创建分片上传会话文件
+     */
+    public Path createUploadFile(String uploadId) throws IOException {
+        Path path = uploadPath(uploadId);
+        Files.createDirectories(path.getParent());
+        Files.deleteIfExists(path);
+        uploadDigests.put(uploadId, new UploadDigest());
+        return Files.createFile(path);
+    }
+
+    /**
+     * 将分片内容写入会话文件的对应偏移处，内容长度必须恰好为 length。
+     * 按位置写入，分片可乱序到达（位置超出当前文件长度时文件随之增长）；
+     * 紧接已摘要前缀的分片边写边计算摘要，其余分片由增量摘要在前缀推进到该处时补算
+     */
+    public void writeUploadChunk(String uploadId, long position, long length, InputStream content)
+            throws IOException {
+        UploadDigest uploadDigest = uploadDigests.get(uploadId, id -> new UploadDigest());
+        try (FileChannel channel = FileChannel.open(uploadPath(uploadId), StandardOpenOption.WRITE,
+                StandardOpenOption.READ);
+                ReadableByteChannel source = Channels.newChannel(content)) {
+            boolean appending = uploadDigest.tryAppend(position, length);
+            ByteBuffer buffer = acquireBuffer();
+            boolean success = false;
+            try {
+                long written = 0;
+                while (written < length) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), length - written));
+                    if (source.read(buffer) < 0) {
+                        break;
+                    }
+                    buffer.flip();
+                    if (appending) {
+                        uploadDigest.update(buffer.duplicate());
+                    }
+                    while (buffer.hasRemaining()) {
+                        written += channel.write(buffer, position + written);
+                    }
+                }
+                if (written != length || source.read(ByteBuffer.allocate(1)) > 0) {
+                    throw new BusinessException("分片大小不正确，应为 " + length + " 字节");
+                }
+                success = true;
+            } finally {
+                if (appending) {
+                    uploadDigest.appended(success, channel, buffer);
+                } else {
+                    uploadDigest.written(position, length, success);
+                }
+                releaseBuffer(buffer);
+            }
+        }
+    }
+
+    /**
+     * 删除分片上传会话文件
+     */
+    public void deleteUploadFile(String uploadId) throws IOException {
+        uploadDigests.invalidate(uploadId);
+        Files.deleteIfExists(uploadPath(uploadId));
+    }
+
+    /**
+     * 将分片上传完成的会话文件移动到正式存储位置（同一文件系统内重命名，不复制数据）。
+     * 本实例经手了全部写入时沿用增量摘要，只补算剩余部分；否则整体读取一遍计算摘要
+     *
+     * @param chunkWrites 数据库记录的分片写入次数，须在确认没有进行中的写入之后读取
+     */
+    public StoredFile commitUpload(String uploadId, String originalFilename, int chunkWrites) throws IOException {
+        Path uploadFile = uploadPath(uploadId);
+        UploadDigest uploadDigest = uploadDigests.asMap().remove(uploadId);
+        Inspection inspection;
+        try (FileChannel source = FileChannel.open(uploadFile, StandardOpenOption.READ)) {
+            String sha256 = null;
+            if (uploadDigest != null) {
+                ByteBuffer buffer = acquireBuffer();
+                try {
+                    sha256 = uploadDigest.finish(source, chunkWrites, buffer);
+                } finally {
+                    releaseBuffer(buffer);
+                }
+            }
+            inspection = sha256 != null
+                    ? new Inspection(sha256, source.size(), sniffHead(source, originalFilename))
+                    : transfer(source, null, originalFilename);
+        }
+        String hash = inspection.sha256();
+        String key = contentAddressed ? hash : UUID.randomUUID() + extensionOf(originalFilename);
+        if (contentAddressed && reuse(resolve(key))) {
+            // 相同内容已存在，直接复用
+            Files.delete(uploadFile);
+        } else {
+            Files.move(uploadFile, targetPath(key), StandardCopyOption.ATOMIC_MOVE);
+        }
+        return new StoredFile(key, inspection.size(), hash, inspection.contentType());
+    }
+
+    /**
+     * 将已有文件纳入内容寻址存储（优先使用硬链接，避免复制）
+     */
+    public StoredFile importFile(Path source) throws IOException {
+        Inspection inspection = inspect(source, source.getFileName().toString());
+        String hash = inspection.sha256();
+        if (!reuse(resolve(hash))) {
+            Path target = targetPath(hash);
+            try {
+                Files.createLink(target, source);
+                // 硬链接沿用旧文件的修改时间，刷新后才不会在版本记录更新前被当作孤立文件回收
+                reuse(target);
+            } catch (FileAlreadyExistsException e) {
+                // 并发导入了相同内容
+                reuse(target);
+            } catch (IOException | UnsupportedOperationException e) {
+                Path temp = newTempFile();
+                try {
+                    Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        }
+        return new StoredFile(hash, inspection.size(), hash, inspection.contentType());
+    }
+
+    /**
+     * 解析存储键对应的文件路径；分片布局下文件尚未迁移时返回平铺路径
+     */
+    public Path resolve(String key) {
+        if (layout == Layout.FLAT) {
+            return root.resolve(key);
+        }
+        Path sharded = shardedPath(key);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path flat = root.resolve(key);
+        return Files.exists(flat) ? flat : sharded;
+    }
+
+    /**
+     * 删除存储文件（两种布局下的位置都会清理）；调用方负责确认已无版本引用该文件
+     */
+    public void delete(String key) {
+        hotFileCache.invalidate(key);
+        try {
+            Files.deleteIfExists(root.resolve(key));
+            if (layout == Layout.SHARDED) {
+                Files.deleteIfExists(shardedPath(key));
+            }
+        } catch (IOException e) {
+            log.error("Failed to delete file: {}", key, e);
+        }
+    }
+
+    /**
+     * 删除不再使用的存储文件，供回收任务调用。
+     * 先把文件原子地移出存储位置，再确认移出前没有上传复用它（复用会刷新修改时间，见 reuse）
+     * 且 referenced 返回 false，否则移回原处；移出之后的复用找不到文件，会重新写入一份。
+     * 因此检查与删除之间不存在文件被复用后又被删除的窗口
+     *
+     * @param modifiedBefore 修改时间不早于该时刻的文件视为刚被复用，保留
+     * @param referenced     文件移出后调用，返回 true 表示仍被版本引用，保留
+     * @return 文件已删除时返回 true；文件不存在或需要保留时返回 false
+     */
+    public boolean deleteIfUnused(String key, Instant modifiedBefore, BooleanSupplier referenced) throws IOException {
+        List<Path> locations = new ArrayList<>(2);
+        locations.add(root.resolve(key));
+        if (layout == Layout.SHARDED) {
+            locations.add(shardedPath(key));
+        }
+
+        // 两种布局下的位置都移出，分片迁移期间同一文件可能同时存在于两处
+        List<Path[]> moved = new ArrayList<>(2);
+        try {
+            for (Path location : locations) {
+                Path aside = root.resolve(INCOMING_DIR).resolve(UUID.randomUUID() + ".reap");
+                Files.createDirectories(aside.getParent());
+                try {
+                    Files.move(location, aside, StandardCopyOption.ATOMIC_MOVE);
+                    moved.add(new Path[] { location, aside });
+                } catch (NoSuchFileException e) {
+                    // 该位置没有文件
+                }
+            }
+            if (moved.isEmpty()) {
+                return false;
+            }
+
+            boolean idle = true;
+            for (Path[] move : moved) {
+                if (!Files.getLastModifiedTime(move[1]).toInstant().isBefore(modifiedBefore)) {
+                    idle = false;
+                }
+            }
+            if (!idle || referenced.getAsBoolean()) {
+                restore(moved);
+                return false;
+            }
+        } catch (IOException | RuntimeException e) {
+            restore(moved);
+            throw e;
+        }
+
+        hotFileCache.invalidate(key);
+        for (Path[] move : moved) {
+            Files.deleteIfExists(move[1]);
+        }
+        return true;
+    }
+
+    /**
+     * 将移出的文件移回原处；期间重新写入的相同内容直接被覆盖
+     */
+    private void restore(List<Path[]> moved) {
+        for (Path[] move : moved) {
+            try {
+                Files.move(move[1], move[0], StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                log.error("Failed to restore file {} from {}", move[0], move[1], e);
+            }
+        }
+    }
+
+    /**
+     * 文件最近修改时间，文件不存在时返回空
+     */
+    public Optional<Instant> lastModified(String key) {
+        try {
+            return Optional.of(Files.getLastModifiedTime(resolve(key)).toInstant());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 遍历两种布局下的所有存储文件（跳过上传中的临时目录），按存储键和最近修改时间回调；
+     * 回调返回 false 时停止遍历
+     */
+    public void walkFiles(BiPredicate<String, Instant> visitor) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Path incoming = root.resolve(INCOMING_DIR);
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(incoming) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                return visitor.test(file.getFileName().toString(), attrs.lastModifiedTime().toInstant())
+                        ? FileVisitResult.CONTINUE
+                        : FileVisitResult.TERMINATE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // 遍历期间被删除或移动的文件
+                log.debug("Skipping unreadable file during storage walk: {}", file, e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 列出根目录下平铺存放的文件的存储键，最多返回 limit 个
+     */
+    public List<String> listFlatKeys(int limit) throws IOException {
+        List<String> keys = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path file : files) {
+                keys.add(file.getFileName().toString());
+                if (keys.size() >= limit) {
+                    break;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // 根目录尚未创建
+        }
+        return keys;
+    }
+
+    /**
+     * 将平铺存放的文件移动到分片目录；目标已存在（内容寻址下的相同内容）时直接删除平铺文件
+     */
+    public void moveToShardedLayout(String key) throws IOException {
+        Path flat = root.resolve(key);
+        Path sharded = shardedPath(key);
+        if (Files.exists(sharded)) {
+            Files.deleteIfExists(flat);
+            return;
+        }
+        Files.createDirectories(sharded.getParent());
+        Files.move(flat, sharded, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 新文件的写入位置，按当前布局创建所需目录
+     */
+    private Path targetPath(String key) throws IOException {
+        if (layout == Layout.FLAT) {
+            Files.createDirectories(root);
+            return root.resolve(key);
+        }
+        Path sharded = shardedPath(key);
+        Files.createDirectories(sharded.getParent());
+        return sharded;
+    }
+
+    /**
+     * 分片路径：内容摘要与 UUID 直接取前 4 个十六进制字符，其他存储键先取摘要
+     */
+    private Path shardedPath(String key) {
+        String prefix = HEX_PREFIX.matcher(key).find()
+                ? key
+                : HexFormat.of().formatHex(sha256().digest(key.getBytes(StandardCharsets.UTF_8)));
+        return root.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(key);
+    }
+
+    /**
+     * 复用已有文件前刷新其修改时间，使回收任务在宽限期内不删除它；文件不存在时返回 false
+     */
+    private boolean reuse(Path existing) throws IOException {
+        try {
+            Files.setLastModifiedTime(existing, FileTime.from(Instant.now()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private Path newTempFile() throws IOException {
+        Path incoming = root.resolve(INCOMING_DIR);
+        Files.createDirectories(incoming);
+        return incoming.resolve(UUID.randomUUID() + ".part");
+    }
+
+    /**
+     * 读取已有文件，计算摘要、字节数并识别内容类型
+     */
+    private static String sniffHead(FileChannel source, String filename) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(ContentTypeSniffer.HEAD_LENGTH);
+        while (head.hasRemaining()) {
+            if (source.read(head, head.position()) <= 0) {
+                break;
+            }
+        }
+        head.flip();
+        return ContentTypeSniffer.sniff(head, filename);
+    }
+
+    private Inspection inspect(Path file, String filename) throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            return transfer(source, null, filename);
+        }
+    }
+
+    /**
+     * 单遍读取源通道：经同一块直接缓冲区写入目标文件（可为空），同时更新摘要、累计字节数并保留文件头用于识别类型
+     */
+    private Inspection transfer(ReadableByteChannel source, FileChannel target, String filename)
+            throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer head = ByteBuffer.allocate(ContentTypeSniffer.HEAD_LENGTH);
+        ByteBuffer buffer = acquireBuffer();
+        long size = 0;
+        try {
+            while (source.read(buffer) >= 0) {
+                buffer.flip();
+                if (head.hasRemaining()) {
+                    ByteBuffer prefix = buffer.duplicate();
+                    prefix.limit(prefix.position() + Math.min(prefix.remaining(), head.remaining()));
+                    head.put(prefix);
+                }
+                size += buffer.remaining();
+                digest.update(buffer.duplicate());
+                if (target != null) {
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer);
+                    }
+                }
+                buffer.clear();
+            }
+        } finally {
+            releaseBuffer(buffer);
+        }
+        head.flip();
+        return new Inspection(HexFormat.of().formatHex(digest.digest()), size,
+                ContentTypeSniffer.sniff(head, filename));
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = ioBuffers.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(IO_BUFFER_SIZE);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        ioBuffers.offer(buffer);
+    }
+
+    /**
+     * 单遍读取的结果
+     */
+    private record Inspection(String sha256, long size, String contentType) {
+    }
+
+    private static String extensionOf(String originalFilename) {
+        return originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : "";
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
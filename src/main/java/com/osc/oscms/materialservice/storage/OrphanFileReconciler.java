@@ -0,0 +1,131 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor.Lane;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 孤立文件清理
+ * 定期遍历存储目录，与 osc_material_version.url 逐批核对，删除没有任何版本引用的文件
+ * （如文件已写入但插入版本记录失败、回收过程中实例退出等情况留下的文件）。
+ * 只处理修改时间早于 orphanMinAge 的文件，批次之间停顿且单次删除数量有上限
+ */
+@Slf4j
+@Component
+public class OrphanFileReconciler {
+
+    private final MaterialFileStorage materialFileStorage;
+    private final MaterialVersionRepository materialVersionRepository;
+    private final MaterialChangeFeed materialChangeFeed;
+    private final StorageIoExecutor storageIoExecutor;
+    private final FileStorageProperties.Reclaim properties;
+
+    public OrphanFileReconciler(MaterialFileStorage materialFileStorage,
+            MaterialVersionRepository materialVersionRepository, MaterialChangeFeed materialChangeFeed,
+            StorageIoExecutor storageIoExecutor, FileStorageProperties properties) {
+        this.materialFileStorage = materialFileStorage;
+        this.materialVersionRepository = materialVersionRepository;
+        this.materialChangeFeed = materialChangeFeed;
+        this.storageIoExecutor = storageIoExecutor;
+        this.properties = properties.getReclaim();
+    }
+
+    @Scheduled(fixedDelayString = "${file.storage.reclaim.reconcile-interval:PT6H}", initialDelayString = "PT10M")
+    public void reconcile() {
+        if (!properties.isReconcileEnabled()) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(properties.getOrphanMinAge());
+        Run run = new Run();
+        try {
+            materialFileStorage.walkFiles((key, lastModified) -> {
+                if (lastModified.isBefore(cutoff)) {
+                    run.candidates.add(key);
+                }
+                return run.candidates.size() < properties.getBatchSize() || run.flush();
+            });
+            if (!run.candidates.isEmpty()) {
+                run.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Failed to walk storage directory for orphaned files", e);
+        } catch (StorageBusyException e) {
+            log.info("Storage busy, stopping orphaned file reconciliation until the next run");
+        } catch (IllegalStateException e) {
+            // 批次之间等待时被中断（应用关闭）
+            log.debug("Orphaned file reconciliation interrupted");
+        }
+        if (run.deleted > 0) {
+            log.info("Reclaimed {} orphaned files after checking {}", run.deleted, run.checked);
+        }
+    }
+
+    /**
+     * 单次清理的进度
+     */
+    private class Run {
+
+        /**
+         * 待核对的存储键；分片迁移期间同一存储键可能同时出现在两个位置
+         */
+        private final Set<String> candidates = new LinkedHashSet<>();
+
+        private int checked;
+        private int deleted;
+
+        /**
+         * 核对并删除当前批次中的孤立文件；达到单次删除上限时返回 false
+         */
+        boolean flush() {
+            Set<String> orphans = new HashSet<>(candidates);
+            materialVersionRepository.findReferencedUrls(candidates).forEach(orphans::remove);
+            checked += candidates.size();
+            candidates.clear();
+
+            for (String key : orphans) {
+                // 核对之后到删除之前文件可能被新上传复用：移出后按修改时间和引用数复核
+                Instant cutoff = Instant.now().minus(properties.getOrphanMinAge());
+                if (delete(key, cutoff)) {
+                    materialChangeFeed.recordFileDeleted(key);
+                    deleted++;
+                }
+            }
+            if (deleted >= properties.getMaxDeletesPerRun()) {
+                log.info("Orphaned file reconciliation reached the limit of {} deletions", deleted);
+                return false;
+            }
+            pause(properties.getBatchPause());
+            return true;
+        }
+
+        private boolean delete(String key, Instant cutoff) {
+            try {
+                return storageIoExecutor.call(Lane.DELETE, () -> materialFileStorage.deleteIfUnused(key, cutoff,
+                        () -> materialVersionRepository.countByUrl(key) > 0));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void pause(Duration duration) {
+            try {
+                Thread.sleep(duration.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
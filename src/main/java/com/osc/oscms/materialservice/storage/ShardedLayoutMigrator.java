@@ -0,0 +1,57 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties.Layout;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 分片目录布局迁移
+ * 把根目录下平铺的历史文件逐批移动到 ab/cd/ 分片目录。存储键不变，无需更新数据库；
+ * 迁移期间 MaterialFileStorage.resolve 同时兼容两种位置，服务可正常读写
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardedLayoutMigrator {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MaterialFileStorage materialFileStorage;
+
+    public void migrate() {
+        if (materialFileStorage.getLayout() != Layout.SHARDED) {
+            return;
+        }
+        int moved = 0;
+        while (true) {
+            List<String> keys;
+            try {
+                keys = materialFileStorage.listFlatKeys(BATCH_SIZE);
+            } catch (IOException e) {
+                log.warn("Failed to list flat files for sharded layout migration", e);
+                return;
+            }
+            int movedInBatch = 0;
+            for (String key : keys) {
+                try {
+                    materialFileStorage.moveToShardedLayout(key);
+                    movedInBatch++;
+                } catch (IOException e) {
+                    log.warn("Failed to move file {} into sharded layout", key, e);
+                }
+            }
+            moved += movedInBatch;
+            // 本批全部失败时停止，避免反复处理同一批文件
+            if (keys.size() < BATCH_SIZE || movedInBatch == 0) {
+                break;
+            }
+        }
+        if (moved > 0) {
+            log.info("Moved {} files into sharded layout", moved);
+        }
+    }
+}
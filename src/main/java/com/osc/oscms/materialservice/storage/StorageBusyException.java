@@ -0,0 +1,13 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.common.exception.BusinessException;
+
+/**
+ * 存储 I/O 排队已满或等待超时，请求以 429 拒绝
+ */
+public class StorageBusyException extends BusinessException {
+
+    public StorageBusyException() {
+        super("存储繁忙，请稍后重试");
+    }
+}
@@ -0,0 +1,278 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.config.FileStorageProperties.IoLane;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 存储 I/O 调度
+ * 读取、写入、删除分别有独立的并发上限和有界等待队列：队列已满或等待超时时抛出 StorageBusyException（429），
+ * 突发的上传或批量删除不会占满磁盘而拖慢下载。删除属于后台任务，读取有排队时让行。
+ * 下载在打开文件时准入，之后每次读取一块文件内容都重新占用读取名额，向客户端写出时不占用。
+ * 各类操作的排队数、执行数、等待时间、执行时间和拒绝次数以 storage.io.* 指标导出。
+ * 批量上传的并行写入使用独立线程池（线程数为写入并发上限，队列满时由提交线程执行），
+ * 启用虚拟线程时每个任务使用一个虚拟线程
+ */
+@Component
+public class StorageIoExecutor {
+
+    /**
+     * 后台任务等待读取让行时的检查间隔
+     */
+    private static final long BACKGROUND_BACKOFF_MILLIS = 20;
+
+    public enum Lane {
+        READ, WRITE, DELETE
+    }
+
+    /**
+     * 存储操作
+     */
+    @FunctionalInterface
+    public interface IoTask<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * 无返回值的存储操作
+     */
+    @FunctionalInterface
+    public interface IoRunnable {
+        void run() throws IOException;
+    }
+
+    private final Map<Lane, Admission> admissions = new EnumMap<>(Lane.class);
+    private final TaskExecutor writeExecutor;
+
+    public StorageIoExecutor(FileStorageProperties properties, Environment environment, MeterRegistry meterRegistry) {
+        FileStorageProperties.Io io = properties.getIo();
+        admissions.put(Lane.READ, new Admission(Lane.READ, io.getRead(), false, meterRegistry));
+        admissions.put(Lane.WRITE, new Admission(Lane.WRITE, io.getWrite(), false, meterRegistry));
+        admissions.put(Lane.DELETE, new Admission(Lane.DELETE, io.getDelete(), true, meterRegistry));
+
+        int writeThreads = io.getWrite().getConcurrency();
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("storage-io-");
+            virtualExecutor.setVirtualThreads(true);
+            virtualExecutor.setConcurrencyLimit(writeThreads);
+            this.writeExecutor = virtualExecutor;
+        } else {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(writeThreads);
+            pool.setMaxPoolSize(writeThreads);
+            pool.setQueueCapacity(io.getWrite().getQueueCapacity());
+            pool.setThreadNamePrefix("storage-io-");
+            pool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+            pool.initialize();
+            this.writeExecutor = pool;
+        }
+    }
+
+    /**
+     * 在当前线程执行存储操作，执行前按类别排队
+     */
+    public <T> T call(Lane lane, IoTask<T> task) throws IOException {
+        Admission admission = admissions.get(lane);
+        admission.acquire();
+        long start = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            admission.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 执行已准入操作的后续存储步骤（如下载时逐块读取文件）：仍受该类别的并发上限约束并计入排队数，
+     * 但不受排队上限和等待超时限制，已开始写出的响应不会中途因繁忙失败
+     */
+    public <T> T callAdmitted(Lane lane, IoTask<T> task) throws IOException {
+        Admission admission = admissions.get(lane);
+        admission.acquireAdmitted();
+        long start = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            admission.release(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 在当前线程执行无返回值的存储操作，执行前按类别排队
+     */
+    public void run(Lane lane, IoRunnable task) throws IOException {
+        call(lane, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * 提交并行写入任务；线程池队列已满时由提交线程自行执行，任务内的存储操作仍需按类别排队
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, writeExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writeExecutor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (writeExecutor instanceof SimpleAsyncTaskExecutor virtualExecutor) {
+            virtualExecutor.close();
+        }
+    }
+
+    /**
+     * 单类操作的准入控制
+     */
+    private final class Admission {
+
+        private final Semaphore permits;
+        private final int queueCapacity;
+        private final long maxWaitNanos;
+        private final boolean background;
+
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final Timer waitTimer;
+        private final Timer executionTimer;
+        private final Counter rejected;
+
+        Admission(Lane lane, IoLane config, boolean background, MeterRegistry meterRegistry) {
+            this.permits = new Semaphore(config.getConcurrency(), true);
+            this.queueCapacity = config.getQueueCapacity();
+            this.maxWaitNanos = config.getMaxWait().toNanos();
+            this.background = background;
+
+            String tag = lane.name().toLowerCase();
+            Gauge.builder("storage.io.queued", queued, AtomicInteger::get)
+                    .description("Storage operations waiting for a slot")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("storage.io.active", active, AtomicInteger::get)
+                    .description("Storage operations in progress")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            this.waitTimer = Timer.builder("storage.io.wait")
+                    .description("Time storage operations spent queued")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            this.executionTimer = Timer.builder("storage.io.duration")
+                    .description("Time storage operations spent executing")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("storage.io.rejected")
+                    .description("Storage operations rejected because the queue was full or the wait timed out")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+        }
+
+        void acquire() {
+            // 无参 tryAcquire() 会越过公平信号量上的排队者；超时为 0 的 tryAcquire 遵守排队顺序且不等待
+            if (!background && tryAcquireNow()) {
+                active.incrementAndGet();
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return;
+            }
+            if (queued.incrementAndGet() > queueCapacity) {
+                queued.decrementAndGet();
+                rejected.increment();
+                throw new StorageBusyException();
+            }
+            long start = System.nanoTime();
+            long deadline = start + maxWaitNanos;
+            try {
+                if (background) {
+                    yieldToReads(deadline);
+                }
+                if (!permits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    rejected.increment();
+                    throw new StorageBusyException();
+                }
+                active.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.increment();
+                throw new StorageBusyException();
+            } finally {
+                queued.decrementAndGet();
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * 等待名额直到获得，不拒绝；等待期间计入排队数，后台任务照常让行
+         */
+        void acquireAdmitted() throws InterruptedIOException {
+            long start = System.nanoTime();
+            try {
+                if (!permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+                    queued.incrementAndGet();
+                    try {
+                        permits.acquire();
+                    } finally {
+                        queued.decrementAndGet();
+                    }
+                }
+                active.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a storage I/O slot");
+            } finally {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private boolean tryAcquireNow() {
+            try {
+                return permits.tryAcquire(0, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                rejected.increment();
+                throw new StorageBusyException();
+            }
+        }
+
+        void release(long executionNanos) {
+            active.decrementAndGet();
+            permits.release();
+            executionTimer.record(executionNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * 有下载在排队时等待其完成，超过截止时间视为繁忙
+         */
+        private void yieldToReads(long deadline) throws InterruptedException {
+            Admission reads = admissions.get(Lane.READ);
+            while (reads.queued.get() > 0) {
+                if (System.nanoTime() - deadline > 0) {
+                    rejected.increment();
+                    throw new StorageBusyException();
+                }
+                Thread.sleep(BACKGROUND_BACKOFF_MILLIS);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.osc.oscms.materialservice.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * 存储迁移启动器
+ * 服务启动后在后台线程依次执行目录布局迁移和内容寻址迁移，不阻塞服务就绪
+ */
+@Component
+@RequiredArgsConstructor
+public class StorageMigrationRunner implements ApplicationRunner {
+
+    private final ShardedLayoutMigrator shardedLayoutMigrator;
+    private final ContentAddressedStorageMigrator contentAddressedStorageMigrator;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread worker = new Thread(() -> {
+            shardedLayoutMigrator.migrate();
+            contentAddressedStorageMigrator.migrate();
+        }, "storage-migrator");
+        worker.setDaemon(true);
+        worker.start();
+    }
+}
@@ -0,0 +1,12 @@
+package com.osc.oscms.materialservice.storage;
+
+/**
+ * 已写入存储的文件
+ *
+ * @param key         存储键，即 osc_material_version.url
+ * @param size        文件大小（字节）
+ * @param sha256      文件内容 SHA-256（十六进制）
+ * @param contentType 按文件头识别的内容类型
+ */
+public record StoredFile(String key, long size, String sha256, String contentType) {
+}
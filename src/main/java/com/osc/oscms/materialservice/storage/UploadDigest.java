@@ -0,0 +1,189 @@
+package com.osc.oscms.materialservice.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分片上传会话文件的增量摘要
+ * 按文件顺序计算已写入前缀的 SHA-256：紧接前缀写入的分片边写边算，乱序到达的分片先记下位置，
+ * 前缀推进到该位置时从会话文件读回补算（刚写入的数据通常仍在页缓存中）。提交时只需补算剩余部分。
+ * 已摘要区域被重写或边写边算的写入失败时摘要作废；本实例结束的写入次数与数据库记录的次数不一致，说明有写入经过其他实例，
+ * 两种情况提交时都整体重新计算
+ */
+@Slf4j
+final class UploadDigest {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final MessageDigest digest = MaterialFileStorage.sha256();
+
+    /**
+     * 已摘要的前缀长度
+     */
+    private long hashed;
+
+    /**
+     * 正在摘要的区域终点，-1 表示当前没有写入占用摘要
+     */
+    private long hashingEnd = -1;
+
+    /**
+     * 已写入尚未摘要的区域：起始位置 → 长度
+     */
+    private final TreeMap<Long, Long> pending = new TreeMap<>();
+
+    private boolean invalid;
+
+    /**
+     * 本实例结束的写入次数（含失败的写入）
+     */
+    private int writes;
+
+    /**
+     * 写入恰好从已摘要前缀末尾开始、且没有其他写入占用摘要时占用摘要，此后由调用方边写边调用 {@link #update}
+     */
+    boolean tryAppend(long position, long length) {
+        lock.lock();
+        try {
+            if (invalid || hashingEnd >= 0 || position != hashed) {
+                return false;
+            }
+            pending.remove(position);
+            hashingEnd = position + length;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 摘要占用方写入数据的同时更新摘要
+     */
+    void update(ByteBuffer data) {
+        digest.update(data);
+    }
+
+    /**
+     * 摘要占用方结束写入：成功时推进前缀并补算其后已写入的区域，失败时摘要作废
+     */
+    void appended(boolean success, FileChannel channel, ByteBuffer buffer) {
+        lock.lock();
+        try {
+            writes++;
+            if (!success) {
+                invalid = true;
+                hashingEnd = -1;
+                return;
+            }
+            hashed = hashingEnd;
+        } finally {
+            lock.unlock();
+        }
+        catchUp(channel, buffer);
+    }
+
+    /**
+     * 未占用摘要的写入结束：重写已摘要或正在摘要的区域时摘要作废；否则成功的写入记下待补算的区域，
+     * 失败的写入不补算，该区域留到提交时按文件内容计算
+     */
+    void written(long position, long length, boolean success) {
+        lock.lock();
+        try {
+            writes++;
+            if (position < Math.max(hashed, hashingEnd)) {
+                invalid = true;
+            } else if (success) {
+                pending.put(position, length);
+            } else {
+                pending.remove(position);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 提交时完成摘要：补算前缀之后的剩余部分并返回十六进制摘要；摘要已作废或写入次数不一致时返回 null
+     *
+     * @param expectedWrites 数据库记录的写入次数
+     */
+    String finish(FileChannel channel, int expectedWrites, ByteBuffer buffer) throws IOException {
+        lock.lock();
+        try {
+            if (invalid || hashingEnd >= 0 || writes != expectedWrites) {
+                return null;
+            }
+            long size = channel.size();
+            read(channel, hashed, size - hashed, buffer);
+            hashed = size;
+            invalid = true;
+            return HexFormat.of().formatHex(digest.digest());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 依次补算紧接前缀的已写入区域，期间仍占用摘要；读取失败时摘要作废，不影响已完成的写入
+     */
+    private void catchUp(FileChannel channel, ByteBuffer buffer) {
+        while (true) {
+            long position;
+            long length;
+            lock.lock();
+            try {
+                Long next = invalid ? null : pending.remove(hashed);
+                if (next == null) {
+                    hashingEnd = -1;
+                    return;
+                }
+                position = hashed;
+                length = next;
+                hashingEnd = position + length;
+            } finally {
+                lock.unlock();
+            }
+
+            boolean success = false;
+            try {
+                read(channel, position, length, buffer);
+                success = true;
+            } catch (IOException e) {
+                log.warn("Failed to read back upload chunk for incremental hashing", e);
+            } finally {
+                lock.lock();
+                try {
+                    if (success) {
+                        hashed = hashingEnd;
+                    } else {
+                        invalid = true;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void read(FileChannel channel, long position, long length, ByteBuffer buffer) throws IOException {
+        long end = position + length;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Upload file ends before " + end);
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+        }
+    }
+}
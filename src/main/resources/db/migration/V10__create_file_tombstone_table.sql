@@ -0,0 +1,11 @@
+-- 存储文件删除墓碑表
+-- 删除版本时在同一事务中记录待删除的文件，事务提交后由后台线程删除；
+-- 事务回滚时墓碑随之回滚，文件保留。实例中途退出时由定时任务继续处理未删除的墓碑
+
+CREATE TABLE osc_file_tombstone (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    file_key VARCHAR(255) NOT NULL COMMENT '待删除的存储文件名',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    INDEX idx_file_key (file_key)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='存储文件删除墓碑表';
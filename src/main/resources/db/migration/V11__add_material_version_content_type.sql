@@ -0,0 +1,29 @@
+-- 资料版本内容类型
+-- 上传时按文件头识别并随版本保存，下载响应的 Content-Type 直接取自版本记录，不再读取文件
+
+ALTER TABLE osc_material_version
+    ADD COLUMN content_type VARCHAR(127) NULL COMMENT '文件内容类型（上传时按文件头识别）' AFTER file_type;
+
+-- 历史版本按扩展名回填常见类型；其余保持 NULL，内容寻址迁移时按文件头补齐，下载时按二进制流返回
+UPDATE osc_material_version
+SET content_type = CASE file_type
+    WHEN 'PDF' THEN 'application/pdf'
+    WHEN 'DOC' THEN 'application/msword'
+    WHEN 'DOCX' THEN 'application/vnd.openxmlformats-officedocument.wordprocessingml.document'
+    WHEN 'XLS' THEN 'application/vnd.ms-excel'
+    WHEN 'XLSX' THEN 'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet'
+    WHEN 'PPT' THEN 'application/vnd.ms-powerpoint'
+    WHEN 'PPTX' THEN 'application/vnd.openxmlformats-officedocument.presentationml.presentation'
+    WHEN 'TXT' THEN 'text/plain'
+    WHEN 'MD' THEN 'text/markdown'
+    WHEN 'PNG' THEN 'image/png'
+    WHEN 'JPG' THEN 'image/jpeg'
+    WHEN 'JPEG' THEN 'image/jpeg'
+    WHEN 'GIF' THEN 'image/gif'
+    WHEN 'MP4' THEN 'video/mp4'
+    WHEN 'MP3' THEN 'audio/mpeg'
+    WHEN 'ZIP' THEN 'application/zip'
+    END
+WHERE content_type IS NULL
+  AND file_type IN ('PDF', 'DOC', 'DOCX', 'XLS', 'XLSX', 'PPT', 'PPTX', 'TXT', 'MD',
+                    'PNG', 'JPG', 'JPEG', 'GIF', 'MP4', 'MP3', 'ZIP');
@@ -0,0 +1,12 @@
+-- 课程资料列表版本
+-- 资料的新增、修改、删除在同一事务中递增所属课程的列表版本，列表接口的 ETag 取自该版本。
+-- 版本随列表缓存一起缓存，条件请求命中缓存时不再查询数据库；未命中时按主键读取一行
+
+CREATE TABLE osc_course_listing_version (
+    course_id BIGINT PRIMARY KEY COMMENT '课程ID',
+    version BIGINT NOT NULL COMMENT '列表版本，资料每次变化递增',
+    updated_at DATETIME(3) NOT NULL COMMENT '列表最近变化时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程资料列表版本';
+
+INSERT INTO osc_course_listing_version (course_id, version, updated_at)
+SELECT course_id, 1, MAX(updated_at) FROM osc_material GROUP BY course_id;
@@ -0,0 +1,7 @@
+-- 分片上传写入登记
+-- 写入分片前后增减 active_writers，提交只在没有进行中的写入时开始，开始提交后不再接受分片；
+-- chunk_writes 累计结束的写入次数，提交时据此判断本实例的增量摘要是否经手了全部写入
+
+ALTER TABLE osc_material_upload
+    ADD COLUMN active_writers INT NOT NULL DEFAULT 0 COMMENT '正在写入的分片数' AFTER status,
+    ADD COLUMN chunk_writes INT NOT NULL DEFAULT 0 COMMENT '已结束的分片写入次数（含失败的写入）' AFTER active_writers;
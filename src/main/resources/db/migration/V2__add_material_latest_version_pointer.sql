@@ -0,0 +1,32 @@
+-- 资料最新版本冗余字段
+-- 读取资料时直接按主键取最新版本信息，不再对版本表执行 ORDER BY version DESC LIMIT 1
+
+-- 版本表记录文件大小与类型，便于最新版本被删除后回退指针
+ALTER TABLE osc_material_version
+    ADD COLUMN file_size BIGINT NULL COMMENT '文件大小（字节）' AFTER url,
+    ADD COLUMN file_type VARCHAR(255) NULL COMMENT '文件类型（扩展名大写）' AFTER file_size;
+
+UPDATE osc_material_version
+SET file_type = UPPER(SUBSTRING_INDEX(filename, '.', -1))
+WHERE filename LIKE '%.%';
+
+ALTER TABLE osc_material
+    ADD COLUMN latest_version_id BIGINT NULL COMMENT '最新版本ID' AFTER visible_classes,
+    ADD COLUMN latest_version INT NULL COMMENT '最新版本号' AFTER latest_version_id,
+    ADD COLUMN latest_filename VARCHAR(255) NULL COMMENT '最新版本文件名' AFTER latest_version,
+    ADD COLUMN latest_url VARCHAR(1024) NULL COMMENT '最新版本文件路径' AFTER latest_filename,
+    ADD COLUMN latest_file_size BIGINT NULL COMMENT '最新版本文件大小（字节）' AFTER latest_url,
+    ADD COLUMN latest_file_type VARCHAR(255) NULL COMMENT '最新版本文件类型' AFTER latest_file_size;
+
+-- 回填已有资料的最新版本（保持 updated_at 不变）
+-- 历史版本未记录文件大小，file_size / latest_file_size 保持为 NULL
+UPDATE osc_material m
+JOIN osc_material_version v ON v.material_id = m.id
+    AND v.version = (SELECT MAX(mv.version) FROM osc_material_version mv WHERE mv.material_id = m.id)
+SET m.latest_version_id = v.id,
+    m.latest_version = v.version,
+    m.latest_filename = v.filename,
+    m.latest_url = v.url,
+    m.latest_file_size = v.file_size,
+    m.latest_file_type = v.file_type,
+    m.updated_at = m.updated_at;
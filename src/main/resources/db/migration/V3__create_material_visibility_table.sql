@@ -0,0 +1,20 @@
+-- 资料可见班级关联表
+-- 替代 visible_classes JSON 列上的 JSON_CONTAINS 过滤，班级可见资料查询可走索引
+-- visible_classes 为 NULL 的资料对所有班级可见，不在本表中记录
+
+CREATE TABLE osc_material_visibility (
+    material_id BIGINT NOT NULL COMMENT '资料ID',
+    class_id BIGINT NOT NULL COMMENT '可见班级ID',
+
+    PRIMARY KEY (material_id, class_id),
+    INDEX idx_class_material (class_id, material_id),
+    CONSTRAINT fk_mvis_material FOREIGN KEY (material_id) REFERENCES osc_material(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='资料可见班级关联表';
+
+-- 从 visible_classes JSON 列回填（兼容数字和字符串形式的班级ID）
+INSERT IGNORE INTO osc_material_visibility (material_id, class_id)
+SELECT m.id, CAST(jt.class_id AS UNSIGNED)
+FROM osc_material m,
+     JSON_TABLE(m.visible_classes, '$[*]' COLUMNS (class_id VARCHAR(64) PATH '$')) jt
+WHERE m.visible_classes IS NOT NULL
+  AND jt.class_id REGEXP '^[0-9]+$';
@@ -0,0 +1,8 @@
+-- 资料版本内容摘要
+-- 内容寻址存储下相同内容只保存一份，url 即文件存储键；
+-- 文件的引用计数即引用同一 url 的版本记录数
+
+ALTER TABLE osc_material_version
+    ADD COLUMN content_hash CHAR(64) NULL COMMENT '文件内容 SHA-256（十六进制）' AFTER file_type,
+    ADD INDEX idx_content_hash (content_hash),
+    ADD INDEX idx_url (url(191));
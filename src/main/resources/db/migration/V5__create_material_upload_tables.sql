@@ -0,0 +1,27 @@
+-- 分片上传会话表
+-- 大文件按分片上传，分片直接写入会话文件对应偏移处，提交后移动到正式存储位置
+
+CREATE TABLE osc_material_upload (
+    id CHAR(36) PRIMARY KEY COMMENT '上传会话ID',
+    course_id BIGINT NULL COMMENT '上传新资料时的课程ID',
+    material_id BIGINT NULL COMMENT '上传新版本时的资料ID',
+    filename VARCHAR(255) NOT NULL COMMENT '文件名',
+    total_size BIGINT NOT NULL COMMENT '文件总大小（字节）',
+    chunk_size INT NOT NULL COMMENT '分片大小（字节）',
+    chunk_count INT NOT NULL COMMENT '分片数量',
+    status VARCHAR(16) NOT NULL DEFAULT 'OPEN' COMMENT '状态：OPEN 上传中 / COMMITTING 提交中',
+    created_by VARCHAR(64) NOT NULL COMMENT '创建人',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    INDEX idx_updated_at (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='资料分片上传会话表';
+
+-- 已接收分片表：分片可重复上传，按 (upload_id, chunk_index) 去重
+CREATE TABLE osc_material_upload_chunk (
+    upload_id CHAR(36) NOT NULL COMMENT '上传会话ID',
+    chunk_index INT NOT NULL COMMENT '分片序号（从0开始）',
+
+    PRIMARY KEY (upload_id, chunk_index),
+    CONSTRAINT fk_muc_upload FOREIGN KEY (upload_id) REFERENCES osc_material_upload(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='资料分片上传已接收分片表';
@@ -0,0 +1,16 @@
+-- 资料变更日志表
+-- 与资料写操作在同一事务中追加，各服务实例按自增ID轮询，失效本地的列表缓存和热点文件缓存
+
+CREATE TABLE osc_material_change (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    change_type VARCHAR(16) NOT NULL COMMENT '变更类型：LISTING 资料列表变化 / FILE 存储文件删除',
+    material_id BIGINT NULL COMMENT '资料ID',
+    course_id BIGINT NULL COMMENT '课程ID',
+    chapter_orders VARCHAR(255) NULL COMMENT '受影响的章节，逗号分隔',
+    class_ids VARCHAR(2048) NULL COMMENT '受影响的班级，逗号分隔；NULL 表示该课程所有班级',
+    file_key VARCHAR(255) NULL COMMENT '被删除的存储文件名',
+    node_id CHAR(36) NOT NULL COMMENT '写入该变更的服务实例',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    INDEX idx_created_at (created_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='资料变更日志表';
@@ -0,0 +1,5 @@
+-- 课程资料分页索引
+-- 列表按 chapter_order 升序、created_at 降序排列，以 (chapter_order, created_at, id) 作为键集分页游标
+
+ALTER TABLE osc_material
+    ADD INDEX idx_course_listing (course_id, chapter_order, created_at DESC, id DESC);
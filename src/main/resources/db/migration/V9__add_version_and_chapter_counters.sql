@@ -0,0 +1,19 @@
+-- 版本号与章节顺序计数器
+-- 版本号和章节顺序由计数器原子分配（UPDATE ... LAST_INSERT_ID(expr)），
+-- 不再使用 MAX()+1，并发上传同一资料的新版本不会因唯一键冲突而失败
+
+ALTER TABLE osc_material
+    ADD COLUMN next_version INT NOT NULL DEFAULT 1 COMMENT '下一个版本号' AFTER latest_file_type;
+
+UPDATE osc_material m
+SET m.next_version = (SELECT COALESCE(MAX(v.version), 0) + 1 FROM osc_material_version v WHERE v.material_id = m.id),
+    m.updated_at = m.updated_at;
+
+-- 课程章节顺序计数器：课程信息由课程服务管理，本服务只记录下一个可分配的章节顺序
+CREATE TABLE osc_course_chapter_counter (
+    course_id BIGINT PRIMARY KEY COMMENT '课程ID',
+    next_chapter_order INT NOT NULL COMMENT '下一个章节顺序'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='课程章节顺序计数器';
+
+INSERT INTO osc_course_chapter_counter (course_id, next_chapter_order)
+SELECT course_id, MAX(chapter_order) + 1 FROM osc_material GROUP BY course_id;
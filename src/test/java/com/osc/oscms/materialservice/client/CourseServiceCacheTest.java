@@ -0,0 +1,104 @@
+package com.osc.oscms.materialservice.client;
+
+import com.osc.oscms.common.response.ApiResponse;
+import com.osc.oscms.materialservice.config.CourseServiceCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 课程服务查询缓存：同一课程的并发未命中只调用一次课程服务，等待他人调用的请求计为合并；
+ * 后台刷新期间直接返回旧值的请求不计入
+ */
+class CourseServiceCacheTest {
+
+    private static final Long COURSE_ID = 42L;
+    private static final int CALLERS = 5;
+
+    private final CourseServiceClient courseServiceClient = mock(CourseServiceClient.class);
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private final AtomicInteger calls = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private CourseServiceCache cache;
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() {
+        when(courseServiceClient.getCourseById(COURSE_ID)).thenAnswer(invocation -> {
+            int call = calls.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return ApiResponse.ok(Map.<String, Object>of("name", "course-" + call));
+        });
+        CourseServiceCacheProperties properties = new CourseServiceCacheProperties();
+        properties.setRefreshAfter(Duration.ofMillis(100));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CourseServiceCache(courseServiceClient, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        cache.shutdown();
+        threads.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesShareOneCallAndCountTheWaiters() throws Exception {
+        release = new CountDownLatch(1);
+        List<Future<Optional<Map<String, Object>>>> lookups = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            lookups.add(threads.submit(() -> cache.getCourse(COURSE_ID)));
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> coalesced() == CALLERS - 1);
+
+        release.countDown();
+        for (Future<Optional<Map<String, Object>>> lookup : lookups) {
+            assertThat(lookup.get(5, TimeUnit.SECONDS)).hasValueSatisfying(
+                    course -> assertThat(course).containsEntry("name", "course-1"));
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(coalesced()).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    void staleReadsDuringABackgroundRefreshAreNotCounted() throws Exception {
+        cache.getCourse(COURSE_ID);
+        Thread.sleep(200);
+
+        // 到达刷新时间：触发后台刷新，刷新被阻塞期间所有请求直接返回旧值
+        release = new CountDownLatch(1);
+        for (int i = 0; i < CALLERS; i++) {
+            assertThat(cache.getCourse(COURSE_ID)).hasValueSatisfying(
+                    course -> assertThat(course).containsEntry("name", "course-1"));
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> calls.get() == 2);
+        assertThat(coalesced()).isZero();
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(cache.getCourse(COURSE_ID))
+                .hasValueSatisfying(course -> assertThat(course).containsEntry("name", "course-2")));
+        assertThat(coalesced()).isZero();
+    }
+
+    private double coalesced() {
+        return meterRegistry.get("course.service.cache.coalesced").counter().count();
+    }
+}
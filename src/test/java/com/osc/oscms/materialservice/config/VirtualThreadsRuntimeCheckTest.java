@@ -0,0 +1,38 @@
+package com.osc.oscms.materialservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 开启虚拟线程而运行时低于 Java 21 时启动失败，其余组合正常启动
+ */
+class VirtualThreadsRuntimeCheckTest {
+
+    @Test
+    void enablingVirtualThreadsBelowJava21FailsFast() {
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        assertThatThrownBy(() -> VirtualThreadsRuntimeCheck.check(environment, 17))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Java 21")
+                .hasMessageContaining("Java 17");
+    }
+
+    @Test
+    void enablingVirtualThreadsOnJava21Starts() {
+        MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+
+        assertThatCode(() -> VirtualThreadsRuntimeCheck.check(environment, 21)).doesNotThrowAnyException();
+    }
+
+    @Test
+    void platformThreadsStartOnAnyRuntime() {
+        assertThatCode(() -> VirtualThreadsRuntimeCheck.check(new MockEnvironment(), 17))
+                .doesNotThrowAnyException();
+        MockEnvironment disabled = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "false");
+        assertThatCode(() -> VirtualThreadsRuntimeCheck.check(disabled, 17)).doesNotThrowAnyException();
+    }
+}
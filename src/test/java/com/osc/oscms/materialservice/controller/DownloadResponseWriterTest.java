@@ -0,0 +1,323 @@
+package com.osc.oscms.materialservice.controller;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.config.FileStorageProperties.IoLane;
+import com.osc.oscms.materialservice.storage.CachedFileResource;
+import com.osc.oscms.materialservice.storage.HotFileCache;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 下载响应：完整内容、单区间、多区间、无法满足的区间、If-Range 与热点缓存文件的释放；
+ * 磁盘读取按块占用读取名额，向客户端写出时不占用
+ */
+class DownloadResponseWriterTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final String ETAG = "\"v1\"";
+
+    @TempDir
+    Path root;
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private SimpleMeterRegistry meterRegistry;
+    private StorageIoExecutor storageIoExecutor;
+    private DownloadResponseWriter writer;
+    private FileSystemResource resource;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // 读取并发为 1，便于观察磁盘读取是否占用名额
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getIo().setRead(new IoLane(1, 10, Duration.ofSeconds(5)));
+        meterRegistry = new SimpleMeterRegistry();
+        storageIoExecutor = new StorageIoExecutor(properties, new MockEnvironment(), meterRegistry);
+        writer = new DownloadResponseWriter(storageIoExecutor);
+
+        Path file = root.resolve("material.pdf");
+        Files.writeString(file, CONTENT, StandardCharsets.US_ASCII);
+        resource = new FileSystemResource(file);
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageIoExecutor.shutdown();
+        threads.shutdownNow();
+    }
+
+    @Test
+    void writesTheWholeFileWithoutRange() throws IOException {
+        MockHttpServletResponse response = download(null);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    }
+
+    @Test
+    void writesASingleRange() throws IOException {
+        MockHttpServletResponse response = download("bytes=2-5");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/20");
+    }
+
+    @Test
+    void writesDisjointRangesAsMultipart() throws IOException {
+        MockHttpServletResponse response = download("bytes=0-1,10-11");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges");
+        assertThat(response.getContentAsString())
+                .contains("Content-Range: bytes 0-1/20\r\n\r\n01")
+                .contains("Content-Range: bytes 10-11/20\r\n\r\nab");
+    }
+
+    @Test
+    void skipsUnsatisfiableRangesWhenAnotherRangeIsSatisfiable() throws IOException {
+        MockHttpServletResponse response = download("bytes=50-60,3-4");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("34");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 3-4/20");
+    }
+
+    @Test
+    void rejectsWhenNoRangeIsSatisfiable() throws IOException {
+        MockHttpServletResponse response = download("bytes=50-60,20-");
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void overlappingRangesAreCoalescedInsteadOfRepeated() throws IOException {
+        MockHttpServletResponse response = download("bytes=0-,0-,0-,0-,0-,0-,0-,0-");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 0-19/20");
+    }
+
+    @Test
+    void adjacentAndOverlappingRangesNeverExceedTheFileSize() throws IOException {
+        MockHttpServletResponse response = download("bytes=10-15,0-4,5-9,-8,3-6");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void ignoresRangeWhenIfRangeDoesNotMatch() throws IOException {
+        MockHttpServletRequest request = request("bytes=0-1");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"v0\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(request, response, resource, "资料.pdf", "application/pdf", ETAG, -1);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void releasesCachedFilesAfterWriting() throws IOException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        HotFileCache hotFileCache = new HotFileCache(new FileStorageProperties(), meterRegistry);
+        Path file = resource.getFile().toPath();
+        CachedFileResource cached = (CachedFileResource) hotFileCache.open("material.pdf", file);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(request("bytes=0-3"), response, cached, "资料.pdf", "application/pdf", ETAG, -1);
+        assertThat(response.getContentAsString()).isEqualTo("0123");
+
+        // 写出时已释放 open 增加的引用，缓存失效后映射随即解除
+        hotFileCache.invalidate("material.pdf");
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> meterRegistry.get("material.file.cache.resident.bytes").gauge().value() == 0);
+        assertThat(cached.retain()).isFalse();
+    }
+
+    @Test
+    void diskReadsWaitForAReadSlot() throws Exception {
+        byte[] content = largeFile();
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> occupied = occupyReadSlot(release);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Future<?> download = threads.submit(() -> {
+            writer.write(request(null), response, resource, "video.mp4", "video/mp4", ETAG, -1);
+            return null;
+        });
+        awaitQueuedReads(1);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+
+        release.countDown();
+        occupied.get(5, TimeUnit.SECONDS);
+        download.get(5, TimeUnit.SECONDS);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void slowClientsDoNotHoldAReadSlot() throws Exception {
+        byte[] content = largeFile();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        StalledResponse response = new StalledResponse(received, writing, release);
+
+        Future<?> download = threads.submit(() -> {
+            writer.write(request(null), response, resource, "video.mp4", "video/mp4", ETAG, -1);
+            return null;
+        });
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 客户端停止接收时，其他下载仍能立即取得唯一的读取名额
+        assertThat(storageIoExecutor.call(Lane.READ, () -> "other download")).isEqualTo("other download");
+
+        release.countDown();
+        download.get(5, TimeUnit.SECONDS);
+        assertThat(received.toByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void deletesYieldToQueuedDownloadReads() throws Exception {
+        largeFile();
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> occupied = occupyReadSlot(release);
+        Future<?> download = threads.submit(() -> {
+            writer.write(request(null), new MockHttpServletResponse(), resource, "video.mp4", "video/mp4", ETAG,
+                    -1);
+            return null;
+        });
+        awaitQueuedReads(1);
+
+        Future<String> delete = threads.submit(() -> storageIoExecutor.call(Lane.DELETE, () -> "deleted"));
+        Thread.sleep(200);
+        assertThat(delete).isNotDone();
+
+        release.countDown();
+        occupied.get(5, TimeUnit.SECONDS);
+        download.get(5, TimeUnit.SECONDS);
+        assertThat(delete.get(5, TimeUnit.SECONDS)).isEqualTo("deleted");
+    }
+
+    /**
+     * 覆盖测试文件为多个读取块大小的随机内容
+     */
+    private byte[] largeFile() throws IOException {
+        byte[] content = new byte[300 * 1024];
+        new Random(5).nextBytes(content);
+        Files.write(resource.getFile().toPath(), content);
+        return content;
+    }
+
+    private Future<?> occupyReadSlot(CountDownLatch release) {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> occupied = threads.submit(() -> storageIoExecutor.call(Lane.READ, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            return null;
+        }));
+        await().atMost(Duration.ofSeconds(5)).until(() -> started.getCount() == 0);
+        return occupied;
+    }
+
+    private void awaitQueuedReads(int queued) {
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> meterRegistry.get("storage.io.queued").tag("lane", "read").gauge().value() == queued);
+    }
+
+    private MockHttpServletResponse download(String range) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(request(range), response, resource, "资料.pdf", "application/pdf", ETAG, -1);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/materials/1/download");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        return request;
+    }
+
+    /**
+     * 接收少量数据后停止读取的客户端
+     */
+    private static final class StalledResponse extends HttpServletResponseWrapper {
+
+        private final ServletOutputStream out;
+
+        StalledResponse(ByteArrayOutputStream received, CountDownLatch writing, CountDownLatch release) {
+            super(new MockHttpServletResponse());
+            this.out = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] { (byte) b }, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    writing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                    received.write(b, off, len);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+            };
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return out;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.osc.oscms.materialservice.controller;
+
+import com.osc.oscms.materialservice.storage.StorageBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 存储繁忙：429 + Retry-After，响应体为 ApiResponse
+ */
+class StorageBusyExceptionHandlerTest {
+
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new BusyController())
+            .setControllerAdvice(new StorageBusyExceptionHandler())
+            .build();
+
+    @Test
+    void storageBusyIsReportedAs429WithRetryAfter() throws Exception {
+        mockMvc.perform(get("/busy"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.message").value("存储繁忙，请稍后重试"));
+    }
+
+    @RestController
+    static class BusyController {
+
+        @GetMapping("/busy")
+        String busy() {
+            throw new StorageBusyException();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.osc.oscms.materialservice.repository;
+
+import com.baomidou.mybatisplus.autoconfigure.MybatisPlusAutoConfiguration;
+import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 数据访问测试：H2（MySQL 兼容模式）+ MyBatis-Plus 映射器，不加载 Web、Feign 等其他组件。
+ * 表结构来自 db/h2/schema.sql，每个测试方法在回滚的事务中执行；可注入 QueryCounter 统计执行的语句数
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(MybatisPlusAutoConfiguration.class)
+@ContextConfiguration(classes = MapperTest.Mappers.class)
+@ActiveProfiles("test")
+public @interface MapperTest {
+
+    @Configuration
+    @MapperScan("com.osc.oscms.materialservice.repository")
+    class Mappers {
+
+        @Bean
+        QueryCounter queryCounter() {
+            return new QueryCounter();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.osc.oscms.materialservice.security;
+
+import com.osc.oscms.materialservice.config.JwtClaimsCacheProperties;
+import com.osc.oscms.materialservice.config.JwtProperties;
+import com.osc.oscms.materialservice.security.JwtClaimsCache.VerifiedToken;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 已验证令牌缓存：条目在 exp 与 maxTtl 中较早者到期，exp 很远时不溢出，无效或已过期的令牌不缓存
+ */
+class JwtClaimsCacheTest {
+
+    private static final String USER_ID = "u1";
+    private static final String SECRET = "oscms-test-secret-key-0123456789abcdefghij";
+
+    private final JwtClaimsParser jwtClaimsParser = spy(new JwtClaimsParser(jwtProperties()));
+
+    @Test
+    void validTokensAreVerifiedOnce() {
+        JwtClaimsCache cache = cache(Duration.ofMinutes(5));
+        String token = token(nowSeconds() + 3600);
+
+        VerifiedToken first = cache.verify(token);
+        VerifiedToken second = cache.verify(token);
+
+        assertThat(first.userId()).isEqualTo(USER_ID);
+        assertThat(first.roles()).containsExactly("STUDENT");
+        assertThat(second).isSameAs(first);
+        verify(jwtClaimsParser, times(1)).parse(token);
+    }
+
+    /**
+     * exp 远在未来（如 2350 年）时，剩余时间换算成纳秒会超出 long 范围；条目仍按 maxTtl 缓存
+     */
+    @ParameterizedTest
+    @ValueSource(longs = { 12_000_000_000L, 90_000_000_000L })
+    void farFutureExpiryIsStillCached(long exp) {
+        JwtClaimsCache cache = cache(Duration.ofMinutes(5));
+        String token = token(exp);
+
+        cache.verify(token);
+        cache.verify(token);
+
+        verify(jwtClaimsParser, times(1)).parse(token);
+    }
+
+    @Test
+    void maxTtlCapsLongLivedTokens() {
+        JwtClaimsCache cache = cache(Duration.ofMillis(200));
+        String token = token(nowSeconds() + 3600);
+
+        cache.verify(token);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            cache.verify(token);
+            verify(jwtClaimsParser, atLeast(2)).parse(token);
+        });
+    }
+
+    @Test
+    void tokensWithoutExpiryUseTheMaxTtl() {
+        JwtClaimsCache cache = cache(Duration.ofMillis(200));
+        String token = token(null);
+
+        cache.verify(token);
+        cache.verify(token);
+        verify(jwtClaimsParser, times(1)).parse(token);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            cache.verify(token);
+            verify(jwtClaimsParser, atLeast(2)).parse(token);
+        });
+    }
+
+    @Test
+    void entriesExpireWithTheToken() {
+        JwtClaimsCache cache = cache(Duration.ofMinutes(5));
+        String token = token(nowSeconds() + 1);
+
+        cache.verify(token);
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            cache.verify(token);
+            verify(jwtClaimsParser, atLeast(2)).parse(token);
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = { -60, -1 })
+    void expiredTokensAreNotCached(long expOffsetSeconds) {
+        JwtClaimsCache cache = cache(Duration.ofMinutes(5));
+        String token = token(nowSeconds() + expOffsetSeconds);
+
+        assertThat(cache.verify(token)).isNull();
+        assertThat(cache.verify(token)).isNull();
+
+        verify(jwtClaimsParser, times(2)).parse(token);
+    }
+
+    @Test
+    void invalidTokensAreNotCached() {
+        JwtClaimsCache cache = cache(Duration.ofMinutes(5));
+        String valid = token(nowSeconds() + 3600);
+        String token = valid.substring(0, valid.lastIndexOf('.') + 1) + "c2lnbmF0dXJl";
+
+        assertThat(cache.verify(token)).isNull();
+        assertThat(cache.verify(token)).isNull();
+
+        verify(jwtClaimsParser, times(2)).parse(token);
+    }
+
+    @Test
+    void tokensWithoutRolesAreRejected() {
+        JwtClaimsCache cache = cache(Duration.ofMinutes(5));
+        String token = sign(Jwts.builder().subject(USER_ID).expiration(new Date((nowSeconds() + 3600) * 1000)));
+
+        assertThat(cache.verify(token)).isNull();
+    }
+
+    private JwtClaimsCache cache(Duration maxTtl) {
+        JwtClaimsCacheProperties properties = new JwtClaimsCacheProperties();
+        properties.setMaxTtl(maxTtl);
+        return new JwtClaimsCache(jwtClaimsParser, properties, new SimpleMeterRegistry());
+    }
+
+    private static JwtProperties jwtProperties() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        return properties;
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * 以测试密钥签发令牌，exp 为空时不带过期时间
+     */
+    private static String token(Long exp) {
+        JwtBuilder builder = Jwts.builder().subject(USER_ID).claim("roles", List.of("STUDENT"));
+        return sign(exp == null ? builder : builder.expiration(new Date(exp * 1000)));
+    }
+
+    private static String sign(JwtBuilder builder) {
+        return builder.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))).compact();
+    }
+}
@@ -0,0 +1,230 @@
+package com.osc.oscms.materialservice.service;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.materialservice.config.MaterialListingCacheProperties;
+import com.osc.oscms.materialservice.dto.MaterialListingStamp;
+import com.osc.oscms.materialservice.repository.CourseListingVersionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 资料列表缓存：重建与失效并发时不能留下失效前读到的旧列表，列表版本随列表缓存与失效
+ */
+class MaterialListingCacheTest {
+
+    private static final Long COURSE_ID = 1L;
+    private static final Long CLASS_ID = 10L;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CourseListingVersionRepository courseListingVersionRepository =
+            mock(CourseListingVersionRepository.class);
+    private MaterialListingCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MaterialListingCache(new MaterialListingCacheProperties(), courseListingVersionRepository,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoadsOfTheSameListingRunOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<List<MaterialDto>> loader = () -> {
+            loads.incrementAndGet();
+            await(release);
+            return listing("v1");
+        };
+
+        List<Future<List<MaterialDto>>> results = List.of(
+                executor.submit(() -> cache.getCourseListing(COURSE_ID, loader)),
+                executor.submit(() -> cache.getCourseListing(COURSE_ID, loader)),
+                executor.submit(() -> cache.getCourseListing(COURSE_ID, loader)));
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<List<MaterialDto>> result : results) {
+            assertThat(title(result.get(5, TimeUnit.SECONDS))).isEqualTo("v1");
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void evictingAllClassesDropsARebuildThatStartedBeforeTheEviction() throws Exception {
+        Future<List<MaterialDto>> staleLoad = startBlockedLoad(
+                loader -> cache.getClassListing(COURSE_ID, CLASS_ID, loader));
+
+        // 重建仍在进行时提交的写操作失效了该课程所有班级的列表
+        cache.evict(COURSE_ID, Set.of(), null);
+        staleLoad.get(5, TimeUnit.SECONDS);
+
+        assertThat(title(cache.getClassListing(COURSE_ID, CLASS_ID, () -> listing("fresh")))).isEqualTo("fresh");
+    }
+
+    @Test
+    void evictingOneClassDropsARebuildThatStartedBeforeTheEviction() throws Exception {
+        Future<List<MaterialDto>> staleLoad = startBlockedLoad(
+                loader -> cache.getClassListing(COURSE_ID, CLASS_ID, loader));
+
+        CompletableFuture<Void> eviction = CompletableFuture.runAsync(
+                () -> cache.evict(COURSE_ID, Set.of(), Set.of(CLASS_ID)), executor);
+        staleLoad.get(5, TimeUnit.SECONDS);
+        eviction.get(5, TimeUnit.SECONDS);
+
+        assertThat(title(cache.getClassListing(COURSE_ID, CLASS_ID, () -> listing("fresh")))).isEqualTo("fresh");
+    }
+
+    @Test
+    void evictingACourseDropsARebuildThatStartedBeforeTheEviction() throws Exception {
+        Future<List<MaterialDto>> staleLoad = startBlockedLoad(
+                loader -> cache.getCourseListing(COURSE_ID, loader));
+
+        CompletableFuture<Void> eviction = CompletableFuture.runAsync(
+                () -> cache.evict(COURSE_ID, Set.of(), Set.of()), executor);
+        staleLoad.get(5, TimeUnit.SECONDS);
+        eviction.get(5, TimeUnit.SECONDS);
+
+        assertThat(title(cache.getCourseListing(COURSE_ID, () -> listing("fresh")))).isEqualTo("fresh");
+    }
+
+    @Test
+    void invalidateAllDropsARebuildThatStartedBeforeTheInvalidation() throws Exception {
+        Future<List<MaterialDto>> staleLoad = startBlockedLoad(
+                loader -> cache.getChapterListing(COURSE_ID, 3, loader));
+
+        cache.invalidateAll();
+        staleLoad.get(5, TimeUnit.SECONDS);
+
+        assertThat(title(cache.getChapterListing(COURSE_ID, 3, () -> listing("fresh")))).isEqualTo("fresh");
+    }
+
+    @Test
+    void evictingOneClassKeepsOtherClasses() {
+        cache.getClassListing(COURSE_ID, CLASS_ID, () -> listing("a"));
+        cache.getClassListing(COURSE_ID, CLASS_ID + 1, () -> listing("b"));
+
+        cache.evict(COURSE_ID, Set.of(), Set.of(CLASS_ID));
+
+        assertThat(title(cache.getClassListing(COURSE_ID, CLASS_ID, () -> listing("a2")))).isEqualTo("a2");
+        assertThat(title(cache.getClassListing(COURSE_ID, CLASS_ID + 1, () -> listing("b2")))).isEqualTo("b");
+    }
+
+    @Test
+    void stampIsServedFromTheCacheUntilTheCourseIsEvicted() {
+        when(courseListingVersionRepository.findStamp(COURSE_ID)).thenReturn(stamp(1), stamp(2));
+
+        assertThat(cache.getStamp(COURSE_ID).getVersion()).isEqualTo(1);
+        assertThat(cache.getStamp(COURSE_ID).getVersion()).isEqualTo(1);
+        verify(courseListingVersionRepository, times(1)).findStamp(COURSE_ID);
+
+        // 只影响某个班级的变更同样使课程的列表版本失效
+        cache.evict(COURSE_ID, Set.of(), Set.of(CLASS_ID));
+
+        assertThat(cache.getStamp(COURSE_ID).getVersion()).isEqualTo(2);
+        verify(courseListingVersionRepository, times(2)).findStamp(COURSE_ID);
+    }
+
+    @Test
+    void courseWithoutAVersionRowHasVersionZero() {
+        MaterialListingStamp stamp = cache.getStamp(COURSE_ID);
+
+        assertThat(stamp.getCourseId()).isEqualTo(COURSE_ID);
+        assertThat(stamp.getVersion()).isZero();
+        assertThat(stamp.getLastUpdatedAt()).isNull();
+    }
+
+    @Test
+    void evictingACourseDropsAStampLoadThatStartedBeforeTheEviction() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(courseListingVersionRepository.findStamp(COURSE_ID)).thenAnswer(invocation -> {
+            loading.countDown();
+            await(release);
+            return stamp(1);
+        }).thenReturn(stamp(2));
+        Future<MaterialListingStamp> staleLoad = executor.submit(() -> cache.getStamp(COURSE_ID));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> eviction = CompletableFuture.runAsync(
+                () -> cache.evict(COURSE_ID, Set.of(), Set.of()), executor);
+        Thread.sleep(200);
+        release.countDown();
+        assertThat(staleLoad.get(5, TimeUnit.SECONDS).getVersion()).isEqualTo(1);
+        eviction.get(5, TimeUnit.SECONDS);
+
+        assertThat(cache.getStamp(COURSE_ID).getVersion()).isEqualTo(2);
+    }
+
+    /**
+     * 在后台开始一次重建，读到旧数据后阻塞，直到返回的 Future 被等待前才放行
+     */
+    private Future<List<MaterialDto>> startBlockedLoad(java.util.function.Function<Supplier<List<MaterialDto>>,
+            List<MaterialDto>> get) throws InterruptedException {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<List<MaterialDto>> result = executor.submit(() -> get.apply(() -> {
+            List<MaterialDto> stale = listing("stale");
+            loading.countDown();
+            await(release);
+            return stale;
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        executor.submit(() -> {
+            // 给失效操作留出时间进入等待或完成
+            Thread.sleep(200);
+            release.countDown();
+            return null;
+        });
+        return result;
+    }
+
+    private static MaterialListingStamp stamp(long version) {
+        MaterialListingStamp stamp = new MaterialListingStamp();
+        stamp.setCourseId(COURSE_ID);
+        stamp.setVersion(version);
+        return stamp;
+    }
+
+    private static List<MaterialDto> listing(String title) {
+        MaterialDto material = new MaterialDto();
+        material.setId(1L);
+        material.setFilename(title);
+        return List.of(material);
+    }
+
+    private static String title(List<MaterialDto> listing) {
+        return listing.get(0).getFilename();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.osc.oscms.materialservice.service.impl;
+
+import com.osc.oscms.common.exception.BusinessException;
+import com.osc.oscms.materialservice.client.CourseServiceCache;
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.domain.MaterialUpload;
+import com.osc.oscms.materialservice.dto.UploadSessionDto;
+import com.osc.oscms.materialservice.repository.MapperTest;
+import com.osc.oscms.materialservice.repository.MaterialUploadRepository;
+import com.osc.oscms.materialservice.service.MaterialService;
+import com.osc.oscms.materialservice.storage.HotFileCache;
+import com.osc.oscms.materialservice.storage.MaterialFileStorage;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import com.osc.oscms.materialservice.storage.StoredFile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 分片上传：提交与分片写入互斥，进行中的写入阻止提交，开始提交后拒绝新的写入；提交沿用写入时计算的摘要；
+ * 清理只删除无活动的会话，正在写入或提交的会话保留
+ */
+@MapperTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChunkedUploadServiceImplTest {
+
+    private static final long MATERIAL_ID = 7L;
+    private static final String USER_ID = "teacher";
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int CHUNKS = 4;
+
+    @TempDir
+    Path root;
+
+    @Autowired
+    private MaterialUploadRepository materialUploadRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MaterialService materialService = mock(MaterialService.class);
+    private MaterialFileStorage storage;
+    private StorageIoExecutor storageIoExecutor;
+    private ChunkedUploadServiceImpl chunkedUploadService;
+    private byte[] content;
+    private String uploadId;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setPath(root.toString());
+        properties.setContentAddressed(true);
+        properties.getChunkedUpload().setChunkSize(DataSize.ofBytes(CHUNK_SIZE));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        storage = new MaterialFileStorage(properties, new HotFileCache(properties, meterRegistry));
+        storageIoExecutor = new StorageIoExecutor(properties, new MockEnvironment(), meterRegistry);
+        chunkedUploadService = new ChunkedUploadServiceImpl(materialUploadRepository, materialService, storage,
+                storageIoExecutor, mock(CourseServiceCache.class), properties);
+
+        content = new byte[CHUNK_SIZE * (CHUNKS - 1) + 100];
+        new Random(11).nextBytes(content);
+        UploadSessionDto session = chunkedUploadService.createSession(null, MATERIAL_ID, "lecture.mp4",
+                content.length, USER_ID);
+        uploadId = session.getUploadId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storageIoExecutor.shutdown();
+        // 写入在各自提交的事务中执行，清理写入的数据，避免影响共用同一数据库的其他测试
+        jdbcTemplate.update("DELETE FROM osc_material_upload");
+    }
+
+    @Test
+    void commitUsesTheDigestComputedWhileChunksWereWritten() throws Exception {
+        for (int chunk = CHUNKS - 1; chunk >= 0; chunk--) {
+            writeChunk(chunk, chunkStream(chunk));
+        }
+
+        chunkedUploadService.commit(uploadId, null, null, "v2", USER_ID);
+
+        ArgumentCaptor<StoredFile> stored = ArgumentCaptor.forClass(StoredFile.class);
+        verify(materialService).createVersion(eq(MATERIAL_ID), eq("v2"), stored.capture(), eq("lecture.mp4"));
+        assertThat(stored.getValue().sha256()).isEqualTo(sha256(content));
+        assertThat(stored.getValue().size()).isEqualTo(content.length);
+        assertThat(Files.readAllBytes(storage.resolve(stored.getValue().key()))).isEqualTo(content);
+        assertThat(materialUploadRepository.selectById(uploadId)).isNull();
+    }
+
+    @Test
+    void commitIsRejectedWhileAChunkIsBeingWritten() throws Exception {
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            writeChunk(chunk, chunkStream(chunk));
+        }
+
+        // 重传第二个分片：先送出一半内容，然后停住
+        CountDownLatch release = new CountDownLatch(1);
+        InputStream stalled = new SequenceInputStream(new ByteArrayInputStream(content, CHUNK_SIZE, CHUNK_SIZE / 2),
+                new InputStream() {
+                    private final InputStream rest = new ByteArrayInputStream(content, CHUNK_SIZE + CHUNK_SIZE / 2,
+                            CHUNK_SIZE / 2);
+
+                    @Override
+                    public int read() throws IOException {
+                        awaitRelease(release);
+                        return rest.read();
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        awaitRelease(release);
+                        return rest.read(b, off, len);
+                    }
+                });
+        CompletableFuture<Void> rewrite = CompletableFuture.runAsync(() -> writeChunk(1, stalled));
+        await().atMost(Duration.ofSeconds(5)).until(() -> activeWriters() == 1);
+
+        assertThatThrownBy(() -> chunkedUploadService.commit(uploadId, null, null, null, USER_ID))
+                .isInstanceOf(BusinessException.class);
+
+        release.countDown();
+        rewrite.get(5, TimeUnit.SECONDS);
+        assertThat(activeWriters()).isZero();
+
+        chunkedUploadService.commit(uploadId, null, null, null, USER_ID);
+        ArgumentCaptor<StoredFile> stored = ArgumentCaptor.forClass(StoredFile.class);
+        verify(materialService).createVersion(eq(MATERIAL_ID), any(), stored.capture(), eq("lecture.mp4"));
+        assertThat(stored.getValue().sha256()).isEqualTo(sha256(content));
+    }
+
+    @Test
+    void chunksAreRejectedOnceCommitHasStarted() throws Exception {
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            writeChunk(chunk, chunkStream(chunk));
+        }
+        assertThat(materialUploadRepository.beginCommit(uploadId)).isEqualTo(1);
+        byte[] before = Files.readAllBytes(storage.uploadPath(uploadId));
+
+        assertThatThrownBy(() -> writeChunk(0, new ByteArrayInputStream(new byte[CHUNK_SIZE])))
+                .isInstanceOf(BusinessException.class);
+
+        assertThat(Files.readAllBytes(storage.uploadPath(uploadId))).isEqualTo(before);
+        assertThat(activeWriters()).isZero();
+    }
+
+    @Test
+    void failedWritesAreUnregistered() {
+        assertThatThrownBy(() -> writeChunk(0, new ByteArrayInputStream(content, 0, CHUNK_SIZE / 2)))
+                .isInstanceOf(BusinessException.class);
+
+        assertThat(activeWriters()).isZero();
+        assertThat(materialUploadRepository.countChunks(uploadId)).isZero();
+    }
+
+    @Test
+    void purgeDeletesIdleSessions() {
+        idleSince(Duration.ofDays(2), MaterialUpload.STATUS_OPEN, 0);
+
+        chunkedUploadService.purgeInactiveSessions();
+
+        assertThat(materialUploadRepository.selectById(uploadId)).isNull();
+        assertThat(Files.exists(storage.uploadPath(uploadId))).isFalse();
+    }
+
+    @Test
+    void purgeKeepsSessionsWithAChunkBeingWritten() {
+        idleSince(Duration.ofDays(2), MaterialUpload.STATUS_OPEN, 1);
+
+        chunkedUploadService.purgeInactiveSessions();
+
+        assertThat(materialUploadRepository.selectById(uploadId)).isNotNull();
+        assertThat(Files.exists(storage.uploadPath(uploadId))).isTrue();
+    }
+
+    @Test
+    void purgeKeepsSessionsBeingCommitted() {
+        idleSince(Duration.ofDays(2), MaterialUpload.STATUS_COMMITTING, 0);
+
+        chunkedUploadService.purgeInactiveSessions();
+
+        assertThat(materialUploadRepository.selectById(uploadId)).isNotNull();
+        assertThat(Files.exists(storage.uploadPath(uploadId))).isTrue();
+    }
+
+    @Test
+    void purgeKeepsRecentlyActiveSessions() {
+        idleSince(Duration.ofHours(1), MaterialUpload.STATUS_OPEN, 0);
+
+        chunkedUploadService.purgeInactiveSessions();
+
+        assertThat(materialUploadRepository.selectById(uploadId)).isNotNull();
+    }
+
+    @Test
+    void aWriteThatStartsAfterThePurgeQueryKeepsTheSession() {
+        idleSince(Duration.ofDays(2), MaterialUpload.STATUS_OPEN, 0);
+        long ttlSeconds = Duration.ofHours(24).toSeconds();
+        assertThat(materialUploadRepository.findInactiveFor(ttlSeconds, 10)).extracting(MaterialUpload::getId)
+                .containsExactly(uploadId);
+
+        materialUploadRepository.beginWrite(uploadId);
+
+        assertThat(materialUploadRepository.deleteIfInactiveFor(uploadId, ttlSeconds)).isZero();
+        assertThat(materialUploadRepository.selectById(uploadId)).isNotNull();
+    }
+
+    /**
+     * 将会话的最后活动时间改到 idle 之前，并设置状态和进行中的写入数
+     */
+    private void idleSince(Duration idle, String status, int activeWriters) {
+        jdbcTemplate.update("UPDATE osc_material_upload SET updated_at = ?, status = ?, active_writers = ? "
+                + "WHERE id = ?", LocalDateTime.now().minus(idle), status, activeWriters, uploadId);
+    }
+
+    private void writeChunk(int chunk, InputStream in) {
+        long length = Math.min(CHUNK_SIZE, content.length - (long) chunk * CHUNK_SIZE);
+        chunkedUploadService.writeChunk(uploadId, chunk, length, in, USER_ID);
+    }
+
+    private InputStream chunkStream(int chunk) {
+        int position = chunk * CHUNK_SIZE;
+        return new ByteArrayInputStream(content, position, Math.min(CHUNK_SIZE, content.length - position));
+    }
+
+    private int activeWriters() {
+        return materialUploadRepository.selectById(uploadId).getActiveWriters();
+    }
+
+    private static void awaitRelease(CountDownLatch release) throws IOException {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}
@@ -0,0 +1,167 @@
+package com.osc.oscms.materialservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.oscms.materialservice.client.CourseServiceCache;
+import com.osc.oscms.materialservice.config.MaterialListingCacheProperties;
+import com.osc.oscms.materialservice.repository.CourseChapterCounterRepository;
+import com.osc.oscms.materialservice.repository.CourseListingVersionRepository;
+import com.osc.oscms.materialservice.repository.MapperTest;
+import com.osc.oscms.materialservice.repository.MaterialRepository;
+import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.repository.MaterialVisibilityRepository;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import com.osc.oscms.materialservice.service.MaterialListingCache;
+import com.osc.oscms.materialservice.storage.FileReaper;
+import com.osc.oscms.materialservice.storage.HotFileCache;
+import com.osc.oscms.materialservice.storage.MaterialFileStorage;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 版本号和章节顺序计数器：并发事务各自提交，分配的值不重复、不跳号；事务外调用直接拒绝
+ */
+@MapperTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MaterialCounterAllocationTest {
+
+    private static final long COURSE_ID = 900L;
+    private static final int THREADS = 8;
+    private static final int ALLOCATIONS_PER_THREAD = 25;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private CourseChapterCounterRepository courseChapterCounterRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    private TransactionTemplate transactionTemplate;
+    private MaterialServiceImpl materialService;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        MaterialListingCacheProperties cacheProperties = new MaterialListingCacheProperties();
+        cacheProperties.setEnabled(false);
+        materialService = new MaterialServiceImpl(materialRepository, mock(MaterialVersionRepository.class),
+                mock(MaterialVisibilityRepository.class), courseChapterCounterRepository,
+                mock(CourseServiceCache.class), mock(MaterialFileStorage.class), mock(FileReaper.class),
+                mock(HotFileCache.class), mock(StorageIoExecutor.class),
+                new MaterialListingCache(cacheProperties, mock(CourseListingVersionRepository.class),
+                        new SimpleMeterRegistry()),
+                mock(MaterialChangeFeed.class), new MaterialDtoConverter(new ObjectMapper()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        // 本测试的事务都已提交，清理写入的数据，避免影响共用同一数据库的其他测试
+        jdbcTemplate.update("DELETE FROM osc_material WHERE course_id = ?", COURSE_ID);
+        jdbcTemplate.update("DELETE FROM osc_course_chapter_counter WHERE course_id = ?", COURSE_ID);
+    }
+
+    @Test
+    void concurrentVersionAllocationsNeverRepeat() throws Exception {
+        jdbcTemplate.update("INSERT INTO osc_material (course_id, chapter_order) VALUES (?, 1)", COURSE_ID);
+        Long materialId = jdbcTemplate.queryForObject("SELECT id FROM osc_material WHERE course_id = ?",
+                Long.class, COURSE_ID);
+
+        List<Integer> versions = allocateConcurrently(() -> materialService.allocateVersion(materialId));
+
+        assertThat(versions).doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(range(1, THREADS * ALLOCATIONS_PER_THREAD));
+        assertThat(jdbcTemplate.queryForObject("SELECT next_version FROM osc_material WHERE id = ?",
+                Integer.class, materialId)).isEqualTo(THREADS * ALLOCATIONS_PER_THREAD + 1);
+    }
+
+    @Test
+    void concurrentChapterAllocationsNeverRepeatEvenForANewCourse() throws Exception {
+        List<Integer> chapters = allocateConcurrently(() -> materialService.allocateChapterOrder(COURSE_ID, null));
+
+        assertThat(chapters).doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(range(1, THREADS * ALLOCATIONS_PER_THREAD));
+    }
+
+    @Test
+    void explicitChaptersPushLaterAllocationsPastThem() {
+        List<Integer> chapters = transactionTemplate.execute(tx -> List.of(
+                materialService.allocateChapterOrder(COURSE_ID, null),
+                materialService.allocateChapterOrder(COURSE_ID, 7),
+                materialService.allocateChapterOrder(COURSE_ID, 3),
+                materialService.allocateChapterOrder(COURSE_ID, null)));
+
+        assertThat(chapters).containsExactly(1, 7, 3, 8);
+    }
+
+    @Test
+    void allocationOutsideATransactionIsRejected() {
+        assertThatThrownBy(() -> materialService.allocateChapterOrder(COURSE_ID, null))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> materialService.allocateVersion(1L))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * 多个线程同时开始，每次分配在各自的事务中进行并提交
+     */
+    private List<Integer> allocateConcurrently(Callable<Integer> allocation) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                List<Integer> allocated = new ArrayList<>();
+                for (int i = 0; i < ALLOCATIONS_PER_THREAD; i++) {
+                    allocated.add(transactionTemplate.execute(tx -> {
+                        try {
+                            return allocation.call();
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }));
+                }
+                return allocated;
+            }));
+        }
+        start.countDown();
+
+        List<Integer> allocated = new ArrayList<>();
+        for (Future<List<Integer>> result : results) {
+            allocated.addAll(result.get(30, TimeUnit.SECONDS));
+        }
+        return allocated;
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.rangeClosed(from, to).boxed().toList();
+    }
+}
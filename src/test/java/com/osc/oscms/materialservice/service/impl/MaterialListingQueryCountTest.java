@@ -0,0 +1,148 @@
+package com.osc.oscms.materialservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.materialservice.client.CourseServiceCache;
+import com.osc.oscms.materialservice.config.MaterialListingCacheProperties;
+import com.osc.oscms.materialservice.repository.CourseChapterCounterRepository;
+import com.osc.oscms.materialservice.repository.CourseListingVersionRepository;
+import com.osc.oscms.materialservice.repository.MapperTest;
+import com.osc.oscms.materialservice.repository.MaterialRepository;
+import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.repository.MaterialVisibilityRepository;
+import com.osc.oscms.materialservice.repository.QueryCounter;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import com.osc.oscms.materialservice.service.MaterialListingCache;
+import com.osc.oscms.materialservice.storage.FileReaper;
+import com.osc.oscms.materialservice.storage.HotFileCache;
+import com.osc.oscms.materialservice.storage.MaterialFileStorage;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 资料列表的查询次数与资料数量无关：最新版本信息取自资料主表，可见班级在同一条 SQL 中关联
+ */
+@MapperTest
+class MaterialListingQueryCountTest {
+
+    private static final long COURSE_ID = 1L;
+    private static final long CLASS_ID = 10L;
+    private static final int CHAPTER = 1;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private MaterialVersionRepository materialVersionRepository;
+
+    @Autowired
+    private MaterialVisibilityRepository materialVisibilityRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    private MaterialServiceImpl materialService;
+
+    @BeforeEach
+    void setUp() {
+        // 关闭列表缓存，每次调用都查询数据库
+        MaterialListingCacheProperties cacheProperties = new MaterialListingCacheProperties();
+        cacheProperties.setEnabled(false);
+        MaterialListingCache materialListingCache = new MaterialListingCache(cacheProperties,
+                mock(CourseListingVersionRepository.class), new SimpleMeterRegistry());
+        materialService = new MaterialServiceImpl(materialRepository, materialVersionRepository,
+                materialVisibilityRepository, mock(CourseChapterCounterRepository.class),
+                mock(CourseServiceCache.class), mock(MaterialFileStorage.class), mock(FileReaper.class),
+                mock(HotFileCache.class), mock(StorageIoExecutor.class), materialListingCache,
+                mock(MaterialChangeFeed.class), new MaterialDtoConverter(new ObjectMapper()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 10, 100 })
+    void listingsRunOneQueryRegardlessOfTheNumberOfMaterials(int materials) {
+        List<Long> ids = seed(materials);
+
+        assertThat(statements(() -> materialService.getMaterialsByCourseId(COURSE_ID))).isEqualTo(1);
+        assertThat(statements(() -> materialService.getMaterialsByChapter(COURSE_ID, CHAPTER))).isEqualTo(1);
+        assertThat(statements(() -> materialService.getVisibleMaterialsByCourseAndClass(COURSE_ID, CLASS_ID)))
+                .isEqualTo(1);
+        assertThat(statements(() -> materialService.getMaterialsPageByCourseId(COURSE_ID, null, 50)))
+                .isEqualTo(1);
+        assertThat(statements(() -> materialService.getMaterialsByIds(ids))).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 10, 100 })
+    void listingsCarryTheLatestVersion(int materials) {
+        seed(materials);
+
+        List<MaterialDto> listing = materialService.getMaterialsByCourseId(COURSE_ID);
+
+        assertThat(listing).hasSize(materials);
+        assertThat(listing).allSatisfy(material -> {
+            assertThat(material.getLatestVersion()).isEqualTo(2);
+            assertThat(material.getFilename()).isEqualTo("m" + material.getId() + "-v2.pdf");
+        });
+        // 偶数号资料只对 CLASS_ID 可见，奇数号资料对所有班级可见
+        assertThat(materialService.getVisibleMaterialsByCourseAndClass(COURSE_ID, CLASS_ID + 1))
+                .hasSize((materials + 1) / 2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 10, 100 })
+    void countingMaterialsRunsOneCountQuery(int materials) {
+        seed(materials);
+
+        queryCounter.reset();
+        assertThat(materialService.countMaterialsByCourseId(COURSE_ID)).isEqualTo(materials);
+        assertThat(queryCounter.count()).isEqualTo(1);
+        assertThat(materialService.countMaterialsByCourseId(COURSE_ID + 1)).isZero();
+    }
+
+    private int statements(Supplier<?> call) {
+        queryCounter.reset();
+        call.get();
+        return queryCounter.count();
+    }
+
+    /**
+     * 写入若干资料，每个资料两个版本，偶数号资料只对 CLASS_ID 可见
+     */
+    private List<Long> seed(int materials) {
+        return LongStream.rangeClosed(1, materials).map(i -> {
+            boolean restricted = i % 2 == 0;
+            jdbcTemplate.update("INSERT INTO osc_material (id, course_id, chapter_order, visible_classes) "
+                    + "VALUES (?, ?, ?, ?)", i, COURSE_ID, CHAPTER, restricted ? "[\"" + CLASS_ID + "\"]" : null);
+            if (restricted) {
+                jdbcTemplate.update("INSERT INTO osc_material_visibility (material_id, class_id) VALUES (?, ?)",
+                        i, CLASS_ID);
+            }
+            long latestVersionId = 0;
+            for (int version = 1; version <= 2; version++) {
+                String filename = "m" + i + "-v" + version + ".pdf";
+                jdbcTemplate.update("INSERT INTO osc_material_version (id, material_id, version, filename, url, "
+                        + "file_type) VALUES (?, ?, ?, ?, ?, 'PDF')", i * 10 + version, i, version, filename, filename);
+                latestVersionId = i * 10 + version;
+            }
+            jdbcTemplate.update("UPDATE osc_material SET latest_version_id = ?, latest_version = 2, "
+                    + "latest_filename = ?, latest_url = ?, latest_file_type = 'PDF' WHERE id = ?",
+                    latestVersionId, "m" + i + "-v2.pdf", "m" + i + "-v2.pdf", i);
+            return i;
+        }).boxed().toList();
+    }
+}
@@ -0,0 +1,227 @@
+package com.osc.oscms.materialservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.osc.oscms.common.exception.BusinessException;
+import com.osc.oscms.materialservice.client.CourseServiceCache;
+import com.osc.oscms.materialservice.config.MaterialListingCacheProperties;
+import com.osc.oscms.materialservice.repository.CourseChapterCounterRepository;
+import com.osc.oscms.materialservice.repository.CourseListingVersionRepository;
+import com.osc.oscms.materialservice.repository.MapperTest;
+import com.osc.oscms.materialservice.repository.MaterialRepository;
+import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.repository.MaterialVisibilityRepository;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import com.osc.oscms.materialservice.service.MaterialListingCache;
+import com.osc.oscms.materialservice.storage.FileReaper;
+import com.osc.oscms.materialservice.storage.HotFileCache;
+import com.osc.oscms.materialservice.storage.MaterialFileStorage;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 删除版本：版本数和新的最新版本在资料行锁内读取，并发上传的新版本不会被旧版本覆盖，并发删除不会删光所有版本
+ */
+@MapperTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MaterialVersionDeletionTest {
+
+    private static final long COURSE_ID = 901L;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private MaterialVersionRepository materialVersionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private TransactionTemplate transactionTemplate;
+    private MaterialServiceImpl materialService;
+    private long materialId;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        MaterialListingCacheProperties cacheProperties = new MaterialListingCacheProperties();
+        cacheProperties.setEnabled(false);
+        materialService = new MaterialServiceImpl(materialRepository, materialVersionRepository,
+                mock(MaterialVisibilityRepository.class), mock(CourseChapterCounterRepository.class),
+                mock(CourseServiceCache.class), mock(MaterialFileStorage.class), mock(FileReaper.class),
+                mock(HotFileCache.class), mock(StorageIoExecutor.class),
+                new MaterialListingCache(cacheProperties, mock(CourseListingVersionRepository.class),
+                        new SimpleMeterRegistry()),
+                mock(MaterialChangeFeed.class), new MaterialDtoConverter(new ObjectMapper()));
+
+        jdbcTemplate.update("INSERT INTO osc_material (course_id, chapter_order, next_version) VALUES (?, 1, 1)",
+                COURSE_ID);
+        materialId = jdbcTemplate.queryForObject("SELECT id FROM osc_material WHERE course_id = ?",
+                Long.class, COURSE_ID);
+        uploadVersion();
+        uploadVersion();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        // 本测试的事务都已提交，清理写入的数据，避免影响共用同一数据库的其他测试
+        jdbcTemplate.update("DELETE FROM osc_material WHERE course_id = ?", COURSE_ID);
+    }
+
+    @Test
+    void deletingTheLatestVersionFallsBackToTheHighestRemainingVersion() {
+        uploadVersion();
+
+        transactionTemplate.executeWithoutResult(tx -> materialService.deleteMaterialVersion(versionId(3)));
+
+        assertThat(latestVersion()).isEqualTo(2);
+        assertThat(latestVersionId()).isEqualTo(versionId(2));
+    }
+
+    @Test
+    void deletingAnOlderVersionKeepsTheLatestVersion() {
+        transactionTemplate.executeWithoutResult(tx -> materialService.deleteMaterialVersion(versionId(1)));
+
+        assertThat(latestVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void theLastVersionCannotBeDeleted() {
+        transactionTemplate.executeWithoutResult(tx -> materialService.deleteMaterialVersion(versionId(2)));
+
+        Long last = versionId(1);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(
+                tx -> materialService.deleteMaterialVersion(last)))
+                .isInstanceOf(BusinessException.class);
+        assertThat(versionCount()).isEqualTo(1);
+        assertThat(latestVersionId()).isEqualTo(last);
+    }
+
+    @Test
+    void deletingTheLatestVersionWhileANewVersionIsUploadedKeepsTheNewVersion() throws Exception {
+        Long deleted = versionId(2);
+        CountDownLatch allocated = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // 上传在分配版本号后停住，此时持有资料行锁，v3 尚未提交
+        Future<?> upload = executor.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+            Integer version = materialService.allocateVersion(materialId);
+            allocated.countDown();
+            await(release);
+            insertVersion(version);
+        }));
+        assertThat(allocated.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<?> delete = executor.submit(() -> transactionTemplate.executeWithoutResult(
+                tx -> materialService.deleteMaterialVersion(deleted)));
+        Thread.sleep(200);
+        assertThat(delete).isNotDone();
+
+        release.countDown();
+        upload.get(5, TimeUnit.SECONDS);
+        delete.get(5, TimeUnit.SECONDS);
+
+        assertThat(latestVersion()).isEqualTo(3);
+        assertThat(latestVersionId()).isEqualTo(versionId(3));
+        assertThat(versionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentDeletesNeverRemoveEveryVersion() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> deletes = new ArrayList<>();
+        for (Long versionId : List.of(versionId(1), versionId(2))) {
+            deletes.add(executor.submit(() -> {
+                start.await();
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> materialService.deleteMaterialVersion(versionId));
+                    return true;
+                } catch (BusinessException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        List<Boolean> succeeded = new ArrayList<>();
+        for (Future<Boolean> delete : deletes) {
+            succeeded.add(delete.get(5, TimeUnit.SECONDS));
+        }
+
+        assertThat(succeeded).containsExactlyInAnyOrder(true, false);
+        assertThat(versionCount()).isEqualTo(1);
+        assertThat(latestVersionId()).isEqualTo(jdbcTemplate.queryForObject(
+                "SELECT id FROM osc_material_version WHERE material_id = ?", Long.class, materialId));
+    }
+
+    /**
+     * 通过服务上传一个新版本并提交
+     */
+    private void uploadVersion() {
+        transactionTemplate.executeWithoutResult(tx -> insertVersion(materialService.allocateVersion(materialId)));
+    }
+
+    /**
+     * 写入已分配版本号的版本并更新最新版本指针，与 createVersion 在分配版本号之后的步骤相同
+     */
+    private void insertVersion(Integer version) {
+        String key = "m" + materialId + "-v" + version;
+        jdbcTemplate.update("INSERT INTO osc_material_version (material_id, version, filename, url) "
+                + "VALUES (?, ?, ?, ?)", materialId, version, key + ".pdf", key);
+        materialRepository.updateLatestVersion(materialVersionRepository
+                .findByMaterialIdAndVersion(materialId, version).orElseThrow());
+    }
+
+    private Long versionId(int version) {
+        return jdbcTemplate.queryForObject("SELECT id FROM osc_material_version WHERE material_id = ? AND version = ?",
+                Long.class, materialId, version);
+    }
+
+    private Integer latestVersion() {
+        return jdbcTemplate.queryForObject("SELECT latest_version FROM osc_material WHERE id = ?",
+                Integer.class, materialId);
+    }
+
+    private Long latestVersionId() {
+        return jdbcTemplate.queryForObject("SELECT latest_version_id FROM osc_material WHERE id = ?",
+                Long.class, materialId);
+    }
+
+    private Integer versionCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM osc_material_version WHERE material_id = ?",
+                Integer.class, materialId);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
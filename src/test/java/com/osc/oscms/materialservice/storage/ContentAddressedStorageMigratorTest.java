@@ -0,0 +1,165 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.common.dto.material.MaterialDto;
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.config.MaterialChangeFeedProperties;
+import com.osc.oscms.materialservice.config.MaterialListingCacheProperties;
+import com.osc.oscms.materialservice.repository.CourseListingVersionRepository;
+import com.osc.oscms.materialservice.repository.MapperTest;
+import com.osc.oscms.materialservice.repository.MaterialChangeRepository;
+import com.osc.oscms.materialservice.repository.MaterialRepository;
+import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import com.osc.oscms.materialservice.service.MaterialListingCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * 内容寻址迁移：版本记录指向摘要文件后，受影响课程的列表缓存在旧文件删除前失效，缓存的列表不再指向已删除的文件
+ */
+@MapperTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ContentAddressedStorageMigratorTest {
+
+    private static final long COURSE_ID = 910L;
+    private static final String LEGACY_URL = "0b7c5e8e-legacy.pdf";
+    private static final byte[] CONTENT = "%PDF-1.7 migrated".getBytes(StandardCharsets.US_ASCII);
+
+    @TempDir
+    Path root;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private MaterialVersionRepository materialVersionRepository;
+
+    @Autowired
+    private MaterialChangeRepository materialChangeRepository;
+
+    @Autowired
+    private CourseListingVersionRepository courseListingVersionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MaterialFileStorage storage;
+    private MaterialListingCache materialListingCache;
+    private ContentAddressedStorageMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setPath(root.toString());
+        properties.setContentAddressed(true);
+        HotFileCache hotFileCache = new HotFileCache(properties, new SimpleMeterRegistry());
+        storage = spy(new MaterialFileStorage(properties, hotFileCache));
+        materialListingCache = new MaterialListingCache(new MaterialListingCacheProperties(),
+                courseListingVersionRepository, new SimpleMeterRegistry());
+        MaterialChangeFeed materialChangeFeed = new MaterialChangeFeed(materialChangeRepository,
+                courseListingVersionRepository, materialListingCache, hotFileCache, new MaterialChangeFeedProperties());
+        migrator = new ContentAddressedStorageMigrator(storage, materialVersionRepository, materialRepository,
+                materialChangeFeed, new TransactionTemplate(transactionManager));
+    }
+
+    @AfterEach
+    void tearDown() {
+        // 迁移在已提交的事务中执行，清理写入的数据，避免影响共用同一数据库的其他测试
+        jdbcTemplate.update("DELETE FROM osc_material WHERE course_id = ?", COURSE_ID);
+        jdbcTemplate.update("DELETE FROM osc_course_listing_version WHERE course_id = ?", COURSE_ID);
+        jdbcTemplate.update("DELETE FROM osc_material_change");
+    }
+
+    @Test
+    void cachedListingsAreEvictedBeforeTheLegacyFileIsDeleted() throws Exception {
+        Files.write(root.resolve(LEGACY_URL), CONTENT);
+        long materialId = seedMaterial(COURSE_ID, 3, LEGACY_URL);
+
+        // 迁移前缓存的列表和列表版本
+        AtomicInteger loads = new AtomicInteger();
+        materialListingCache.getCourseListing(COURSE_ID, () -> listing(loads, materialId));
+        materialListingCache.getChapterListing(COURSE_ID, 3, () -> listing(loads, materialId));
+        long versionBefore = materialListingCache.getStamp(COURSE_ID).getVersion();
+
+        AtomicLong versionAtDelete = new AtomicLong(-1);
+        doAnswer(invocation -> {
+            versionAtDelete.set(materialListingCache.getStamp(COURSE_ID).getVersion());
+            return invocation.callRealMethod();
+        }).when(storage).delete(LEGACY_URL);
+
+        migrator.migrate();
+
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+        assertThat(jdbcTemplate.queryForObject("SELECT latest_url FROM osc_material WHERE id = ?",
+                String.class, materialId)).isEqualTo(sha256);
+        assertThat(Files.exists(root.resolve(LEGACY_URL))).isFalse();
+        assertThat(Files.readAllBytes(storage.resolve(sha256))).isEqualTo(CONTENT);
+
+        // 删除旧文件时列表版本已递增，缓存的列表已失效
+        assertThat(versionAtDelete.get()).isGreaterThan(versionBefore);
+        materialListingCache.getCourseListing(COURSE_ID, () -> listing(loads, materialId));
+        materialListingCache.getChapterListing(COURSE_ID, 3, () -> listing(loads, materialId));
+        assertThat(loads).hasValue(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM osc_material_change "
+                + "WHERE change_type = 'FILE' AND file_key = ?", Integer.class, LEGACY_URL)).isEqualTo(1);
+    }
+
+    @Test
+    void missingLegacyFilesAreLeftAlone() {
+        long materialId = seedMaterial(COURSE_ID, 1, LEGACY_URL);
+        long versionBefore = materialListingCache.getStamp(COURSE_ID).getVersion();
+
+        migrator.migrate();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT latest_url FROM osc_material WHERE id = ?",
+                String.class, materialId)).isEqualTo(LEGACY_URL);
+        assertThat(materialListingCache.getStamp(COURSE_ID).getVersion()).isEqualTo(versionBefore);
+    }
+
+    private long seedMaterial(long courseId, int chapterOrder, String url) {
+        jdbcTemplate.update("INSERT INTO osc_material (course_id, chapter_order) VALUES (?, ?)", courseId,
+                chapterOrder);
+        Long materialId = jdbcTemplate.queryForObject("SELECT id FROM osc_material WHERE course_id = ?",
+                Long.class, courseId);
+        jdbcTemplate.update("INSERT INTO osc_material_version (material_id, version, filename, url, file_type) "
+                + "VALUES (?, 1, 'slides.pdf', ?, 'PDF')", materialId, url);
+        jdbcTemplate.update("UPDATE osc_material m SET latest_version = 1, latest_url = ?, latest_filename = "
+                + "'slides.pdf', latest_version_id = (SELECT id FROM osc_material_version v "
+                + "WHERE v.material_id = m.id) WHERE id = ?", url, materialId);
+        jdbcTemplate.update("INSERT INTO osc_course_listing_version (course_id, version, updated_at) "
+                + "VALUES (?, 1, CURRENT_TIMESTAMP(3))", courseId);
+        return materialId;
+    }
+
+    private static List<MaterialDto> listing(AtomicInteger loads, long materialId) {
+        loads.incrementAndGet();
+        MaterialDto material = new MaterialDto();
+        material.setId(materialId);
+        return List.of(material);
+    }
+}
@@ -0,0 +1,117 @@
+package com.osc.oscms.materialservice.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 内容类型识别：魔数优先，容器格式参考扩展名细分，文本与二进制不被扩展名冒充
+ */
+class ContentTypeSnifferTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "255044462D312E37,            notes.bin,  application/pdf",
+            "89504E470D0A1A0A,            image.jpg,  image/png",
+            "FFD8FFE0,                    photo.png,  image/jpeg",
+            "474946383961,                ,           image/gif",
+            "52494646000000005745425056,  ,           image/webp",
+            "1F8B0800,                    data.tgz,   application/gzip",
+            "526172211A07,                ,           application/vnd.rar",
+            "377ABCAF271C,                ,           application/x-7z-compressed",
+            "49443303,                    ,           audio/mpeg",
+    })
+    void magicNumbersWinOverTheFilename(String hex, String filename, String expected) {
+        assertThat(sniff(hex(hex), filename)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "slides.pptx,   application/vnd.openxmlformats-officedocument.presentationml.presentation",
+            "report.docx,   application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "book.epub,     application/epub+zip",
+            "archive.zip,   application/zip",
+            "notes.txt,     application/zip",
+            ",              application/zip",
+    })
+    void zipContainersAreRefinedByTheirExtension(String filename, String expected) {
+        assertThat(sniff(hex("504B0304"), filename)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "paper.doc,     application/msword",
+            "sheet.xls,     application/vnd.ms-excel",
+            "deck.ppt,      application/vnd.ms-powerpoint",
+            "paper.pdf,     application/x-ole-storage",
+    })
+    void ole2DocumentsAreRefinedByTheirExtension(String filename, String expected) {
+        assertThat(sniff(hex("D0CF11E0A1B11AE1"), filename)).isEqualTo(expected);
+    }
+
+    @Test
+    void mp4ContainersKeepAnAudioOrVideoExtension() {
+        byte[] head = hex("0000001866747970");
+
+        assertThat(sniff(head, "lecture.mp4")).isEqualTo("video/mp4");
+        assertThat(sniff(head, "podcast.m4a")).startsWith("audio/");
+        assertThat(sniff(head, "lecture.pdf")).isEqualTo("video/mp4");
+    }
+
+    @Test
+    void textIsRecognisedRegardlessOfEncoding() {
+        assertThat(sniff("<h1>课程大纲</h1>\n".getBytes(StandardCharsets.UTF_8), "outline.html"))
+                .isEqualTo("text/html");
+        assertThat(sniff("第一章 绪论\r\n".getBytes(Charset.forName("GBK")), "chapter.txt"))
+                .isEqualTo("text/plain");
+        assertThat(sniff("{\"a\": 1}".getBytes(StandardCharsets.UTF_8), "data.json"))
+                .isEqualTo("application/json");
+        assertThat(sniff("plain words".getBytes(StandardCharsets.UTF_8), "run.exe")).isEqualTo("text/plain");
+        assertThat(sniff("plain words".getBytes(StandardCharsets.UTF_8), null)).isEqualTo("text/plain");
+    }
+
+    @Test
+    void binaryContentIsNotTrustedAsTextBecauseOfItsExtension() {
+        byte[] binary = { 0x01, 0x02, 0x00, 0x7F, 0x10, 0x11, 0x12 };
+
+        assertThat(sniff(binary, "notes.txt")).isEqualTo("application/octet-stream");
+        assertThat(sniff(binary, "payload.html")).isEqualTo("application/octet-stream");
+        assertThat(sniff(binary, "model.stl")).isNotEqualTo("application/octet-stream").doesNotStartWith("text/");
+        assertThat(sniff(binary, null)).isEqualTo("application/octet-stream");
+    }
+
+    @Test
+    void emptyFilesFallBackToTheExtension() {
+        assertThat(sniff(new byte[0], "empty.pdf")).isEqualTo("application/pdf");
+        assertThat(sniff(new byte[0], null)).isEqualTo("application/octet-stream");
+    }
+
+    @Test
+    void sniffingReadsFromThePositionWithoutConsumingTheBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+        buffer.put(new byte[] { 'x', 'x' }).put("%PDF-1.4".getBytes(StandardCharsets.US_ASCII)).flip();
+        buffer.position(2);
+
+        assertThat(ContentTypeSniffer.sniff(buffer, "a.bin")).isEqualTo("application/pdf");
+        assertThat(buffer.position()).isEqualTo(2);
+        assertThat(buffer.remaining()).isEqualTo(8);
+    }
+
+    private static String sniff(byte[] head, String filename) {
+        return ContentTypeSniffer.sniff(ByteBuffer.wrap(head), filename);
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,162 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.config.FileStorageProperties.Layout;
+import com.osc.oscms.materialservice.domain.FileTombstone;
+import com.osc.oscms.materialservice.repository.FileTombstoneRepository;
+import com.osc.oscms.materialservice.repository.MaterialVersionRepository;
+import com.osc.oscms.materialservice.service.MaterialChangeFeed;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文件回收：回滚墓碑在独立事务中写入，复核未通过的文件保留墓碑
+ */
+class FileReaperTest {
+
+    @TempDir
+    Path root;
+
+    private final FileTombstoneRepository fileTombstoneRepository = mock(FileTombstoneRepository.class);
+    private final MaterialVersionRepository materialVersionRepository = mock(MaterialVersionRepository.class);
+    private final MaterialChangeFeed materialChangeFeed = mock(MaterialChangeFeed.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private MaterialFileStorage storage;
+    private StorageIoExecutor storageIoExecutor;
+    private FileReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setPath(root.toString());
+        properties.setContentAddressed(true);
+        properties.setLayout(Layout.SHARDED);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        storage = new MaterialFileStorage(properties, new HotFileCache(properties, meterRegistry));
+        storageIoExecutor = new StorageIoExecutor(properties, new MockEnvironment(), meterRegistry);
+        reaper = new FileReaper(fileTombstoneRepository, materialVersionRepository, storage, materialChangeFeed,
+                storageIoExecutor, properties, transactionManager);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    @AfterEach
+    void tearDown() {
+        reaper.shutdown();
+        storageIoExecutor.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rolledBackUploadsAreTombstonedInANewTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        reaper.releaseOnRollback(List.of("a", "b"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        var order = inOrder(transactionManager, fileTombstoneRepository);
+        order.verify(transactionManager).getTransaction(definition.capture());
+        order.verify(fileTombstoneRepository).insertBatch(Set.of("a", "b"));
+        order.verify(transactionManager).commit(any());
+        assertThat(definition.getValue().getPropagationBehavior())
+                .isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Test
+    void committedUploadsAreNotTombstoned() {
+        TransactionSynchronizationManager.initSynchronization();
+        reaper.releaseOnRollback(List.of("a"));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        verify(transactionManager, never()).getTransaction(any());
+        verify(fileTombstoneRepository, never()).insertBatch(any());
+    }
+
+    @Test
+    void reapsIdleUnreferencedFiles() throws IOException {
+        String key = storeIdle();
+        tombstone(key);
+
+        reaper.reapPending();
+
+        assertThat(storage.lastModified(key)).isEmpty();
+        verify(materialChangeFeed).recordFileDeleted(key);
+        verify(fileTombstoneRepository).deleteByFileKey(key);
+    }
+
+    @Test
+    void keepsTheTombstoneWhenAVersionReferencesTheFileDuringTheReap() throws IOException {
+        String key = storeIdle();
+        tombstone(key);
+        // 首次检查时没有引用，文件移出后复核时已有新版本引用
+        when(materialVersionRepository.countByUrl(key)).thenReturn(0L, 1L);
+
+        reaper.reapPending();
+
+        assertThat(Files.readString(storage.resolve(key))).isEqualTo("slides");
+        verify(materialChangeFeed, never()).recordFileDeleted(key);
+        verify(fileTombstoneRepository, never()).deleteByFileKey(key);
+    }
+
+    @Test
+    void keepsFilesWithinTheGracePeriod() throws IOException {
+        String key = storage.store(new ByteArrayInputStream("slides".getBytes(StandardCharsets.UTF_8)), "s.pdf").key();
+        tombstone(key);
+
+        reaper.reapPending();
+
+        assertThat(storage.lastModified(key)).isPresent();
+        verify(fileTombstoneRepository, never()).deleteByFileKey(key);
+    }
+
+    private String storeIdle() throws IOException {
+        String key = storage.store(new ByteArrayInputStream("slides".getBytes(StandardCharsets.UTF_8)), "s.pdf").key();
+        Files.setLastModifiedTime(storage.resolve(key), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        return key;
+    }
+
+    private void tombstone(String key) {
+        FileTombstone tombstone = new FileTombstone();
+        tombstone.setId(1L);
+        tombstone.setFileKey(key);
+        when(fileTombstoneRepository.findAfter(anyLong(), anyInt())).thenReturn(List.of(tombstone));
+    }
+}
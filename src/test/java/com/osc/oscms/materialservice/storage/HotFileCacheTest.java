@@ -0,0 +1,129 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 热点文件缓存：映射按引用计数解除，映射字节数反映实际映射的内存
+ */
+class HotFileCacheTest {
+
+    private static final int FILE_SIZE = 4096;
+
+    @TempDir
+    Path root;
+
+    private final FileStorageProperties properties = new FileStorageProperties();
+    private SimpleMeterRegistry meterRegistry;
+    private HotFileCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties.getHotCache().setMaxSize(DataSize.ofBytes(FILE_SIZE * 2L));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new HotFileCache(properties, meterRegistry);
+    }
+
+    @Test
+    void mapsSmallFilesAndServesLaterRequestsFromTheCache() throws IOException {
+        Path file = write("a", 'a');
+
+        CachedFileResource first = (CachedFileResource) cache.open("a", file);
+        CachedFileResource second = (CachedFileResource) cache.getIfPresent("a");
+
+        assertThat(second).isSameAs(first);
+        assertThat(read(first)).startsWith("aaaa");
+        assertThat(mappedBytes()).isEqualTo(FILE_SIZE);
+        first.release();
+        second.release();
+        assertThat(mappedBytes()).isEqualTo(FILE_SIZE);
+    }
+
+    @Test
+    void invalidationUnmapsOnlyAfterTheLastReaderReleases() throws IOException {
+        CachedFileResource reader = (CachedFileResource) cache.open("a", write("a", 'a'));
+
+        cache.invalidate("a");
+
+        // 缓存已不再持有，但仍在读取中的映射保持有效
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(read(reader)).startsWith("aaaa");
+        assertThat(mappedBytes()).isEqualTo(FILE_SIZE);
+
+        reader.release();
+        await().atMost(Duration.ofSeconds(5)).until(() -> mappedBytes() == 0);
+        assertThat(reader.retain()).isFalse();
+    }
+
+    @Test
+    void evictionUnmapsIdleFilesSoMappedBytesStayWithinTheBudget() throws IOException {
+        for (char c = 'a'; c <= 'f'; c++) {
+            ((CachedFileResource) cache.open(String.valueOf(c), write(String.valueOf(c), c))).release();
+        }
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> mappedBytes() <= FILE_SIZE * 2L);
+    }
+
+    @Test
+    void releasingMoreThanRetainedFails() throws IOException {
+        CachedFileResource reader = (CachedFileResource) cache.open("a", write("a", 'a'));
+        reader.release();
+
+        cache.invalidate("a");
+        await().atMost(Duration.ofSeconds(5)).until(() -> mappedBytes() == 0);
+
+        assertThatThrownBy(reader::release).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void largeAndEmptyFilesAreNotMapped() throws IOException {
+        properties.getHotCache().setMaxFileSize(DataSize.ofBytes(FILE_SIZE - 1));
+        HotFileCache smallFiles = new HotFileCache(properties, new SimpleMeterRegistry());
+        Path empty = Files.createFile(root.resolve("empty"));
+
+        assertThat(smallFiles.open("a", write("a", 'a'))).isInstanceOf(FileSystemResource.class);
+        assertThat(smallFiles.open("empty", empty)).isInstanceOf(FileSystemResource.class);
+    }
+
+    @Test
+    void disabledCacheReturnsPlainFiles() throws IOException {
+        properties.getHotCache().setEnabled(false);
+        HotFileCache disabled = new HotFileCache(properties, new SimpleMeterRegistry());
+
+        assertThat(disabled.open("a", write("a", 'a'))).isInstanceOf(FileSystemResource.class);
+        assertThat(disabled.getIfPresent("a")).isNull();
+    }
+
+    private Path write(String name, char fill) throws IOException {
+        byte[] content = String.valueOf(fill).repeat(FILE_SIZE).getBytes(StandardCharsets.US_ASCII);
+        return Files.write(root.resolve(name), content);
+    }
+
+    private static String read(Resource resource) throws IOException {
+        ByteBuffer buffer = ((CachedFileResource) resource).slice(0, 16);
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private double mappedBytes() {
+        return meterRegistry.get("material.file.cache.resident.bytes").gauge().value();
+    }
+}
@@ -0,0 +1,133 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.config.FileStorageProperties.Layout;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 写入时一次读取得到摘要、大小和内容类型；回收删除时移出后复核修改时间与引用，刚被复用或仍被引用的文件保留
+ */
+class MaterialFileStorageTest {
+
+    private static final String CONTENT = "lecture notes";
+
+    @TempDir
+    Path root;
+
+    private MaterialFileStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setPath(root.toString());
+        properties.setContentAddressed(true);
+        properties.setLayout(Layout.SHARDED);
+        storage = new MaterialFileStorage(properties, new HotFileCache(properties, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void storingCapturesHashSizeAndContentTypeInOnePass() throws Exception {
+        // 跨越多个 I/O 缓冲区的 PDF
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        System.arraycopy("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 0, content, 0, 8);
+
+        StoredFile stored = storage.store(new ByteArrayInputStream(content), "slides.bin");
+
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertThat(stored.sha256()).isEqualTo(sha256);
+        assertThat(stored.key()).isEqualTo(sha256);
+        assertThat(stored.size()).isEqualTo(content.length);
+        assertThat(stored.contentType()).isEqualTo("application/pdf");
+        assertThat(Files.readAllBytes(storage.resolve(stored.key()))).isEqualTo(content);
+    }
+
+    @Test
+    void storingTheSameContentTwiceKeepsOneBlob() throws IOException {
+        String first = store();
+        String second = store();
+
+        assertThat(second).isEqualTo(first);
+        assertThat(Files.readString(storage.resolve(first))).isEqualTo(CONTENT);
+        assertThat(storage.resolve(first).getParent().toFile().list()).hasSize(1);
+    }
+
+    @Test
+    void deletesIdleUnreferencedFiles() throws IOException {
+        String key = storeIdle();
+
+        assertThat(storage.deleteIfUnused(key, Instant.now(), () -> false)).isTrue();
+        assertThat(storage.lastModified(key)).isEmpty();
+        assertThat(Files.list(root.resolve(".incoming"))).isEmpty();
+    }
+
+    @Test
+    void keepsFilesModifiedAfterTheCutoff() throws IOException {
+        String key = store();
+
+        assertThat(storage.deleteIfUnused(key, Instant.now().minus(Duration.ofMinutes(10)), () -> false)).isFalse();
+        assertThat(Files.readString(storage.resolve(key))).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void restoresFilesThatAreStillReferenced() throws IOException {
+        String key = storeIdle();
+
+        assertThat(storage.deleteIfUnused(key, Instant.now(), () -> true)).isFalse();
+        assertThat(Files.readString(storage.resolve(key))).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void aDeduplicatedUploadDuringTheCheckIsNotDeleted() throws IOException {
+        String key = storeIdle();
+        AtomicReference<String> reused = new AtomicReference<>();
+
+        // 引用检查通过之后、删除之前同内容再次上传：此时原文件已移出，上传重新写入一份
+        boolean deleted = storage.deleteIfUnused(key, Instant.now(), () -> {
+            try {
+                reused.set(store());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return false;
+        });
+
+        assertThat(deleted).isTrue();
+        assertThat(reused.get()).isEqualTo(key);
+        assertThat(Files.readString(storage.resolve(key))).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void missingFilesAreReportedAsNotDeleted() throws IOException {
+        assertThat(storage.deleteIfUnused("missing", Instant.now(), () -> false)).isFalse();
+    }
+
+    private String storeIdle() throws IOException {
+        String key = store();
+        Files.setLastModifiedTime(storage.resolve(key), FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        return key;
+    }
+
+    private String store() throws IOException {
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.UTF_8);
+        return storage.store(new ByteArrayInputStream(bytes), "notes.txt").key();
+    }
+}
@@ -0,0 +1,182 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import com.osc.oscms.materialservice.config.FileStorageProperties.IoLane;
+import com.osc.oscms.materialservice.storage.StorageIoExecutor.Lane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 存储 I/O 准入：并发上限、有界排队、排队顺序与 429 拒绝
+ */
+class StorageIoExecutorTest {
+
+    private final ExecutorService threads = Executors.newCachedThreadPool();
+    private SimpleMeterRegistry meterRegistry;
+    private StorageIoExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getIo().setRead(new IoLane(1, 2, Duration.ofSeconds(5)));
+        properties.getIo().setDelete(new IoLane(1, 10, Duration.ofMillis(200)));
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new StorageIoExecutor(properties, new MockEnvironment(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        threads.shutdownNow();
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> running = occupy(Lane.READ, release);
+        Future<?> firstQueued = threads.submit(() -> executor.call(Lane.READ, () -> "first"));
+        Future<?> secondQueued = threads.submit(() -> executor.call(Lane.READ, () -> "second"));
+        awaitQueued(Lane.READ, 2);
+
+        assertThatThrownBy(() -> executor.call(Lane.READ, () -> "rejected"))
+                .isInstanceOf(StorageBusyException.class);
+        assertThat(meterRegistry.get("storage.io.rejected").tag("lane", "read").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertThat(firstQueued.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(secondQueued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void rejectsWhenTheWaitTimesOut() throws Exception {
+        executor.shutdown();
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.getIo().setRead(new IoLane(1, 10, Duration.ofMillis(100)));
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new StorageIoExecutor(properties, new MockEnvironment(), meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> running = occupy(Lane.READ, release);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> executor.call(Lane.READ, () -> "timed out"))
+                .isInstanceOf(StorageBusyException.class);
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(gauge("storage.io.queued", Lane.READ)).isZero();
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void queuedOperationsRunInArrivalOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> running = occupy(Lane.READ, release);
+        List<String> order = new CopyOnWriteArrayList<>();
+        Future<?> first = submit(Lane.READ, () -> order.add("first"));
+        awaitQueued(Lane.READ, 1);
+        Future<?> second = submit(Lane.READ, () -> order.add("second"));
+        awaitQueued(Lane.READ, 2);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        assertThat(order).containsExactly("first", "second");
+        assertThat(gauge("storage.io.queued", Lane.READ)).isZero();
+        assertThat(gauge("storage.io.active", Lane.READ)).isZero();
+    }
+
+    @Test
+    void admittedStepsWaitBeyondTheQueueCapacityInsteadOfBeingRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> running = occupy(Lane.READ, release);
+        List<Future<String>> steps = List.of(
+                threads.submit(() -> executor.callAdmitted(Lane.READ, () -> "first")),
+                threads.submit(() -> executor.callAdmitted(Lane.READ, () -> "second")),
+                threads.submit(() -> executor.callAdmitted(Lane.READ, () -> "third")));
+        awaitQueued(Lane.READ, 3);
+
+        // 排队数已超过上限，新的准入请求被拒绝，已准入操作的后续步骤继续等待
+        assertThatThrownBy(() -> executor.call(Lane.READ, () -> "rejected"))
+                .isInstanceOf(StorageBusyException.class);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        for (Future<String> step : steps) {
+            assertThat(step.get(5, TimeUnit.SECONDS)).isNotNull();
+        }
+        assertThat(gauge("storage.io.queued", Lane.READ)).isZero();
+        assertThat(gauge("storage.io.active", Lane.READ)).isZero();
+    }
+
+    @Test
+    void aFreePermitIsTakenWithoutQueueing() throws Exception {
+        assertThat(executor.call(Lane.READ, () -> gauge("storage.io.active", Lane.READ))).isEqualTo(1.0);
+        assertThat(meterRegistry.get("storage.io.wait").tag("lane", "read").timer().count()).isEqualTo(1);
+        assertThat(gauge("storage.io.queued", Lane.READ)).isZero();
+    }
+
+    @Test
+    void deletesYieldToQueuedReads() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> running = occupy(Lane.READ, release);
+        Future<?> queuedRead = threads.submit(() -> executor.call(Lane.READ, () -> "read"));
+        awaitQueued(Lane.READ, 1);
+
+        // 读取持续排队超过删除的最长等待时间，删除被拒绝而不是抢占磁盘
+        assertThatThrownBy(() -> executor.run(Lane.DELETE, () -> { }))
+                .isInstanceOf(StorageBusyException.class);
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertThat(queuedRead.get(5, TimeUnit.SECONDS)).isEqualTo("read");
+        executor.run(Lane.DELETE, () -> { });
+    }
+
+    private Future<?> occupy(Lane lane, CountDownLatch release) {
+        Future<?> running = submit(lane, () -> block(release));
+        await().atMost(Duration.ofSeconds(5)).until(() -> gauge("storage.io.active", lane) == 1);
+        return running;
+    }
+
+    private Future<?> submit(Lane lane, StorageIoExecutor.IoRunnable task) {
+        return threads.submit(() -> {
+            executor.run(lane, task);
+            return null;
+        });
+    }
+
+    private void awaitQueued(Lane lane, int queued) {
+        await().atMost(Duration.ofSeconds(5)).until(() -> gauge("storage.io.queued", lane) == queued);
+    }
+
+    private double gauge(String name, Lane lane) {
+        return meterRegistry.get(name).tag("lane", lane.name().toLowerCase()).gauge().value();
+    }
+
+    private static void block(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.osc.oscms.materialservice.storage;
+
+import com.osc.oscms.common.exception.BusinessException;
+import com.osc.oscms.materialservice.config.FileStorageProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 分片上传增量摘要：按任意顺序写入的分片得到与整体计算相同的摘要，顺序写入的分片提交时不再读取；
+ * 重写、写入失败或有写入未经本实例时提交按文件内容整体重新计算
+ */
+class UploadDigestTest {
+
+    private static final String UPLOAD_ID = "upload-1";
+    private static final int CHUNK_SIZE = 100 * 1024;
+    private static final int CHUNKS = 8;
+
+    @TempDir
+    Path root;
+
+    private MaterialFileStorage storage;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        FileStorageProperties properties = new FileStorageProperties();
+        properties.setPath(root.toString());
+        properties.setContentAddressed(true);
+        storage = new MaterialFileStorage(properties, new HotFileCache(properties, new SimpleMeterRegistry()));
+
+        // 最后一个分片不满，PDF 文件头位于第一个分片
+        content = new byte[CHUNK_SIZE * (CHUNKS - 1) + 1234];
+        new Random(7).nextBytes(content);
+        System.arraycopy("%PDF-1.7".getBytes(StandardCharsets.US_ASCII), 0, content, 0, 8);
+        storage.createUploadFile(UPLOAD_ID);
+    }
+
+    @Test
+    void inOrderChunksAreNotReadAgainAtCommit() throws IOException {
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            write(chunk, content);
+        }
+        // 提交前篡改会话文件的后半部分：摘要沿用写入时的计算结果，不会读到篡改后的内容
+        byte[] tampered = content.clone();
+        tampered[tampered.length - 1] ^= 0x7F;
+        Files.write(storage.uploadPath(UPLOAD_ID), tampered);
+
+        StoredFile stored = storage.commitUpload(UPLOAD_ID, "slides.pdf", CHUNKS);
+
+        assertThat(stored.sha256()).isEqualTo(sha256(content));
+        assertThat(stored.size()).isEqualTo(content.length);
+        assertThat(stored.contentType()).isEqualTo("application/pdf");
+    }
+
+    @Test
+    void outOfOrderChunksProduceTheSameDigest() throws IOException {
+        for (int chunk : new int[] { 2, 0, 3, 1, 7, 5, 6, 4 }) {
+            write(chunk, content);
+        }
+
+        StoredFile stored = storage.commitUpload(UPLOAD_ID, "slides.pdf", CHUNKS);
+
+        assertThat(stored.sha256()).isEqualTo(sha256(content));
+        assertThat(stored.key()).isEqualTo(sha256(content));
+        assertThat(Files.readAllBytes(storage.resolve(stored.key()))).isEqualTo(content);
+        assertThat(Files.exists(storage.uploadPath(UPLOAD_ID))).isFalse();
+    }
+
+    @Test
+    void concurrentChunksProduceTheSameDigest() throws Exception {
+        List<Integer> chunks = new ArrayList<>(IntStream.range(0, CHUNKS).boxed().toList());
+        Collections.shuffle(chunks, new Random(3));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int chunk : chunks) {
+                writes.add(executor.submit(() -> {
+                    write(chunk, content);
+                    return null;
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(storage.commitUpload(UPLOAD_ID, "slides.pdf", CHUNKS).sha256()).isEqualTo(sha256(content));
+    }
+
+    @Test
+    void rewritingAHashedChunkFallsBackToTheFileContent() throws IOException {
+        byte[] first = content.clone();
+        first[10] ^= 0x7F;
+        write(0, first);
+        write(1, content);
+        // 重传第一个分片，内容与第一次不同
+        write(0, content);
+        for (int chunk = 2; chunk < CHUNKS; chunk++) {
+            write(chunk, content);
+        }
+
+        assertThat(storage.commitUpload(UPLOAD_ID, "slides.pdf", CHUNKS + 1).sha256()).isEqualTo(sha256(content));
+    }
+
+    @Test
+    void failedChunkWritesFallBackToTheFileContent() throws IOException {
+        write(0, content);
+        assertThatThrownBy(() -> storage.writeUploadChunk(UPLOAD_ID, CHUNK_SIZE, CHUNK_SIZE,
+                new ByteArrayInputStream(content, CHUNK_SIZE, CHUNK_SIZE / 2)))
+                .isInstanceOf(BusinessException.class);
+        for (int chunk = 1; chunk < CHUNKS; chunk++) {
+            write(chunk, content);
+        }
+
+        assertThat(storage.commitUpload(UPLOAD_ID, "slides.pdf", CHUNKS + 1).sha256()).isEqualTo(sha256(content));
+    }
+
+    @Test
+    void writesThroughAnotherInstanceFallBackToTheFileContent() throws IOException {
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            write(chunk, content);
+        }
+        // 其他实例重写了最后一个分片：本实例没有经手，数据库记录的写入次数多一次
+        byte[] rewritten = content.clone();
+        rewritten[rewritten.length - 1] ^= 0x7F;
+        Files.write(storage.uploadPath(UPLOAD_ID), rewritten);
+
+        assertThat(storage.commitUpload(UPLOAD_ID, "slides.pdf", CHUNKS + 1).sha256()).isEqualTo(sha256(rewritten));
+    }
+
+    @Test
+    void sessionsWithoutALocalDigestAreHashedAtCommit() throws IOException {
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+            write(chunk, content);
+        }
+        storage.deleteUploadFile(UPLOAD_ID);
+        // 会话文件由其他实例创建并写入
+        Files.write(storage.uploadPath(UPLOAD_ID), content);
+
+        assertThat(storage.commitUpload(UPLOAD_ID, "slides.pdf", CHUNKS).sha256()).isEqualTo(sha256(content));
+    }
+
+    private void write(int chunk, byte[] source) throws IOException {
+        int position = chunk * CHUNK_SIZE;
+        int length = Math.min(CHUNK_SIZE, source.length - position);
+        storage.writeUploadChunk(UPLOAD_ID, position, length, new ByteArrayInputStream(source, position, length));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+-- 数据访问测试和压测用 H2 表结构（MySQL 兼容模式）
+-- 等价于 db/migration 执行到 V13 后的结构。迁移脚本使用了 UPDATE ... JOIN、JSON_TABLE、ADD COLUMN ... AFTER 等
+-- H2 不支持的语法，测试和压测环境关闭 Flyway，改为加载本文件；新增迁移时同步修改。
+-- visible_classes 在 H2 中使用 VARCHAR：H2 的 JSON 列会把写入的字符串当作 JSON 字符串值保存
+
+CREATE TABLE osc_material (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    course_id BIGINT NOT NULL COMMENT '所属课程ID',
+    chapter_order INT NOT NULL COMMENT '章节顺序',
+    visible_classes VARCHAR(4096) NULL COMMENT '可见班级ID列表，JSON格式',
+    latest_version_id BIGINT NULL COMMENT '最新版本ID',
+    latest_version INT NULL COMMENT '最新版本号',
+    latest_filename VARCHAR(255) NULL COMMENT '最新版本文件名',
+    latest_url VARCHAR(1024) NULL COMMENT '最新版本文件路径',
+    latest_file_size BIGINT NULL COMMENT '最新版本文件大小（字节）',
+    latest_file_type VARCHAR(255) NULL COMMENT '最新版本文件类型',
+    next_version INT NOT NULL DEFAULT 1 COMMENT '下一个版本号',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    INDEX idx_course_id (course_id),
+    INDEX idx_chapter_order (chapter_order),
+    INDEX idx_course_listing (course_id, chapter_order, created_at DESC, id DESC)
+) COMMENT='教学资料主表';
+
+CREATE TABLE osc_material_version (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    material_id BIGINT NOT NULL COMMENT '关联的资料ID',
+    version INT NOT NULL COMMENT '版本号',
+    filename VARCHAR(255) NOT NULL COMMENT '文件名',
+    url VARCHAR(1024) NOT NULL COMMENT '文件URL或路径',
+    file_size BIGINT NULL COMMENT '文件大小（字节）',
+    file_type VARCHAR(255) NULL COMMENT '文件类型（扩展名大写）',
+    content_type VARCHAR(127) NULL COMMENT '文件内容类型（上传时按文件头识别）',
+    content_hash CHAR(64) NULL COMMENT '文件内容 SHA-256（十六进制）',
+    description TEXT NULL COMMENT '版本描述',
+    uploaded_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '上传时间',
+
+    CONSTRAINT fk_mv_material FOREIGN KEY (material_id) REFERENCES osc_material(id) ON DELETE CASCADE,
+    UNIQUE KEY uq_material_version (material_id, version),
+    INDEX idx_material_id (material_id),
+    INDEX idx_uploaded_at (uploaded_at),
+    INDEX idx_content_hash (content_hash),
+    INDEX idx_url (url)
+) COMMENT='教学资料版本表';
+
+CREATE TABLE osc_material_visibility (
+    material_id BIGINT NOT NULL COMMENT '资料ID',
+    class_id BIGINT NOT NULL COMMENT '可见班级ID',
+
+    PRIMARY KEY (material_id, class_id),
+    INDEX idx_class_material (class_id, material_id),
+    CONSTRAINT fk_mvis_material FOREIGN KEY (material_id) REFERENCES osc_material(id) ON DELETE CASCADE
+) COMMENT='资料可见班级关联表';
+
+CREATE TABLE osc_material_upload (
+    id CHAR(36) PRIMARY KEY COMMENT '上传会话ID',
+    course_id BIGINT NULL COMMENT '上传新资料时的课程ID',
+    material_id BIGINT NULL COMMENT '上传新版本时的资料ID',
+    filename VARCHAR(255) NOT NULL COMMENT '文件名',
+    total_size BIGINT NOT NULL COMMENT '文件总大小（字节）',
+    chunk_size INT NOT NULL COMMENT '分片大小（字节）',
+    chunk_count INT NOT NULL COMMENT '分片数量',
+    status VARCHAR(16) NOT NULL DEFAULT 'OPEN' COMMENT '状态：OPEN 上传中 / COMMITTING 提交中',
+    active_writers INT NOT NULL DEFAULT 0 COMMENT '正在写入的分片数',
+    chunk_writes INT NOT NULL DEFAULT 0 COMMENT '已结束的分片写入次数（含失败的写入）',
+    created_by VARCHAR(64) NOT NULL COMMENT '创建人',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    INDEX idx_updated_at (updated_at)
+) COMMENT='资料分片上传会话表';
+
+CREATE TABLE osc_material_upload_chunk (
+    upload_id CHAR(36) NOT NULL COMMENT '上传会话ID',
+    chunk_index INT NOT NULL COMMENT '分片序号（从0开始）',
+
+    PRIMARY KEY (upload_id, chunk_index),
+    CONSTRAINT fk_muc_upload FOREIGN KEY (upload_id) REFERENCES osc_material_upload(id) ON DELETE CASCADE
+) COMMENT='资料分片上传已接收分片表';
+
+CREATE TABLE osc_material_change (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    change_type VARCHAR(16) NOT NULL COMMENT '变更类型：LISTING 资料列表变化 / FILE 存储文件删除',
+    material_id BIGINT NULL COMMENT '资料ID',
+    course_id BIGINT NULL COMMENT '课程ID',
+    chapter_orders VARCHAR(255) NULL COMMENT '受影响的章节，逗号分隔',
+    class_ids VARCHAR(2048) NULL COMMENT '受影响的班级，逗号分隔；NULL 表示该课程所有班级',
+    file_key VARCHAR(255) NULL COMMENT '被删除的存储文件名',
+    node_id CHAR(36) NOT NULL COMMENT '写入该变更的服务实例',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    INDEX idx_created_at (created_at)
+) COMMENT='资料变更日志表';
+
+CREATE TABLE osc_course_chapter_counter (
+    course_id BIGINT PRIMARY KEY COMMENT '课程ID',
+    next_chapter_order INT NOT NULL COMMENT '下一个章节顺序'
+) COMMENT='课程章节顺序计数器';
+
+CREATE TABLE osc_course_listing_version (
+    course_id BIGINT PRIMARY KEY COMMENT '课程ID',
+    version BIGINT NOT NULL COMMENT '列表版本，资料每次变化递增',
+    updated_at DATETIME(3) NOT NULL COMMENT '列表最近变化时间'
+) COMMENT='课程资料列表版本';
+
+CREATE TABLE osc_file_tombstone (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    file_key VARCHAR(255) NOT NULL COMMENT '待删除的存储文件名',
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    INDEX idx_file_key (file_key)
+) COMMENT='存储文件删除墓碑表';